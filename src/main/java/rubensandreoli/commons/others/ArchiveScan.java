@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Paths found by {@code FileUtils#scanChildren(Path, int, boolean, boolean)},
+ * owning the archives opened to list them.<br>
+ * Paths inside archives can only be read while the scan is open; closing it
+ * closes every archive file system the scan opened, including the ones with no
+ * paths in the result, like empty or filtered out archives.
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ArchiveScan implements Closeable {
+
+    private final List<Path> paths;
+    private final List<FileSystem> archives;
+
+    public ArchiveScan(List<Path> paths, List<FileSystem> archives) {
+        this.paths = Collections.unmodifiableList(paths);
+        this.archives = archives;
+    }
+
+    public List<Path> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return number of archives opened by the scan
+     */
+    public int getArchiveCount(){
+        return archives.size();
+    }
+
+    @Override
+    public void close(){
+        for (FileSystem archive : archives) {
+            try{
+                archive.close();
+            }catch(IOException ex){} //read-only, nothing to lose
+        }
+    }
+
+}
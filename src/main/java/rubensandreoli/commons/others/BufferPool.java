@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe pool of direct buffers in a few size classes.<br>
+ * Reading many files into pooled buffers, instead of new arrays, keeps the young
+ * generation free of short-lived garbage; and direct buffers are filled by
+ * file channels without an intermediary copy. Buffers must be released after use,
+ * and must not be used after being released.
+ *
+ * References:<br>
+ * https://stackoverflow.com/questions/5670862/bytebuffer-allocate-vs-bytebuffer-allocatedirect<br>
+ * https://netty.io/wiki/using-as-a-generic-library.html#buffer-api
+ *
+ * @see rubensandreoli.commons.utils.FileUtils#read(java.io.File, ByteBuffer)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class BufferPool {
+
+    public static final int[] DEFAULT_SIZES = {4 * 1024, 64 * 1024, 1024 * 1024}; //bytes
+    public static final int DEFAULT_RETAINED = 64; //per size
+
+    public static final BufferPool buffers = new BufferPool(); //eager initialization
+
+    private final int[] sizes;
+    private final int retained;
+    private final Queue<ByteBuffer>[] free;
+    private final AtomicInteger[] counts;
+
+    public BufferPool() {
+        this(DEFAULT_SIZES, DEFAULT_RETAINED);
+    }
+
+    /**
+     * @param sizes capacity of each size class, in ascending order
+     * @param retained maximum number of free buffers kept per size class
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int[] sizes, int retained) {
+        for (int i = 1; i < sizes.length; i++) {
+            if(sizes[i] <= sizes[i-1]) throw new IllegalArgumentException("sizes must be in ascending order");
+        }
+        this.sizes = sizes.clone();
+        this.retained = retained;
+        free = new Queue[sizes.length];
+        counts = new AtomicInteger[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+            counts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Returns a cleared buffer of the smallest size class that fits the requested
+     * capacity, with its limit set to that capacity. Requests bigger than the
+     * largest class get a new heap buffer, that is not pooled.
+     *
+     * @param capacity minimum amount of bytes needed
+     * @return buffer ready to be written
+     */
+    public ByteBuffer acquire(int capacity){
+        final int index = getSizeClass(capacity);
+        if(index == -1) return ByteBuffer.allocate(capacity);
+        ByteBuffer buffer = free[index].poll();
+        if(buffer == null){
+            buffer = ByteBuffer.allocateDirect(sizes[index]);
+        }else{
+            counts[index].decrementAndGet();
+            buffer.clear();
+        }
+        buffer.limit(capacity);
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. Buffers not acquired from a pool of the
+     * same sizes, or beyond the retained amount, are left to the garbage collector.
+     *
+     * @param buffer buffer acquired from this pool; or {@code null}
+     */
+    public void release(ByteBuffer buffer){
+        if(buffer == null || !buffer.isDirect()) return;
+        for (int i = 0; i < sizes.length; i++) {
+            if(sizes[i] == buffer.capacity()){
+                if(counts[i].incrementAndGet() <= retained) free[i].offer(buffer);
+                else counts[i].decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private int getSizeClass(int capacity){
+        for (int i = 0; i < sizes.length; i++) {
+            if(capacity <= sizes[i]) return i;
+        }
+        return -1;
+    }
+
+    public int getMaxPooledSize(){
+        return sizes[sizes.length-1];
+    }
+
+}
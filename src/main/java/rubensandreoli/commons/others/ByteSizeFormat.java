@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats amounts of bytes like {@code "1,5 MB"} with integer math only.<br>
+ * The unit is the largest one not bigger than the amount; the number has
+ * grouped thousands and up to the given fraction digits, rounded half-even and
+ * without trailing zeros, just like the {@code "#,##0.#"} pattern of {@code DecimalFormat}.
+ * Separators come from the locale. Units may be decimal (SI: kB = 1000), binary
+ * (IEC: KiB = 1024) or binary with decimal names (JEDEC: KB = 1024), the last one
+ * being what most file managers show.<br>
+ * Instances are immutable and thread-safe; formatting only allocates a small
+ * scratch array, and can append to an existing {@code StringBuilder} or {@code Appendable}.
+ *
+ * References:<br>
+ * https://en.wikipedia.org/wiki/Binary_prefix<br>
+ * https://stackoverflow.com/questions/3758606/how-can-i-convert-byte-size-into-a-human-readable-format-in-java
+ *
+ * @see rubensandreoli.commons.utils.FileUtils#formatFilesize(long)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ByteSizeFormat {
+
+    public static final int SI = 0;
+    public static final int IEC = 1;
+    public static final int JEDEC = 2;
+
+    public static final int DEFAULT_FRACTION_DIGITS = 1;
+    private static final String[][] UNITS = {
+        {"B", "kB", "MB", "GB", "TB", "PB", "EB"},
+        {"B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB"},
+        {"B", "KB", "MB", "GB", "TB", "PB", "EB"}
+    };
+    private static final int[] POWERS = {1, 10, 100, 1000};
+    private static final int MAX_LENGTH = 40; //chars
+
+    private static volatile ByteSizeFormat instance;
+
+    private final int mode;
+    private final int fractionDigits;
+    private final Locale locale;
+    private final long[] divisors = new long[UNITS[0].length];
+    private final char zero, grouping, decimal, minus;
+
+    /**
+     * Returns a shared JEDEC format with one fraction digit for the current default
+     * format locale.
+     *
+     * @return the shared format
+     */
+    public static ByteSizeFormat getInstance(){
+        final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        ByteSizeFormat format = instance;
+        if(format == null || !format.locale.equals(locale)){
+            format = new ByteSizeFormat(JEDEC, DEFAULT_FRACTION_DIGITS, locale);
+            instance = format;
+        }
+        return format;
+    }
+
+    /**
+     * @param mode {@code ByteSizeFormat#SI}, {@code ByteSizeFormat#IEC} or {@code ByteSizeFormat#JEDEC}
+     * @param fractionDigits maximum amount of fraction digits, from 0 to 3
+     * @param locale locale of the separators and digits
+     */
+    public ByteSizeFormat(int mode, int fractionDigits, Locale locale) {
+        if(mode < SI || mode > JEDEC) throw new IllegalArgumentException("invalid mode "+mode);
+        if(fractionDigits < 0 || fractionDigits > 3) throw new IllegalArgumentException("parameter fractionDigits "+fractionDigits+" not in [0, 3]");
+        this.mode = mode;
+        this.fractionDigits = fractionDigits;
+        this.locale = locale;
+        final long base = mode == SI? 1000 : 1024;
+        divisors[0] = 1;
+        for (int i = 1; i < divisors.length; i++) {
+            divisors[i] = divisors[i-1] * base;
+        }
+        final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        zero = symbols.getZeroDigit();
+        grouping = symbols.getGroupingSeparator();
+        decimal = symbols.getDecimalSeparator();
+        minus = symbols.getMinusSign();
+    }
+
+    public String format(long bytes){
+        return format(bytes, new StringBuilder(16)).toString();
+    }
+
+    public StringBuilder format(long bytes, StringBuilder sb){
+        final char[] chars = new char[MAX_LENGTH];
+        return sb.append(chars, 0, format(bytes, chars));
+    }
+
+    public <A extends Appendable> A format(long bytes, A appendable) throws IOException{
+        final char[] chars = new char[MAX_LENGTH];
+        appendable.append(CharBuffer.wrap(chars, 0, format(bytes, chars)));
+        return appendable;
+    }
+
+    /**
+     * Writes the formatted amount from the start of the array.
+     *
+     * @return amount of chars written
+     */
+    private int format(long bytes, char[] chars){
+        int length = 0;
+        if(bytes < 0){
+            chars[length++] = minus;
+            bytes = bytes == Long.MIN_VALUE? Long.MAX_VALUE : -bytes;
+        }
+        int unit = divisors.length-1;
+        while(unit > 0 && bytes < divisors[unit]) unit--;
+        final long divisor = divisors[unit];
+
+        //INTEGER AND FRACTION DIGITS, AS UNSIGNED SO REMAINDER*10 DOESN'T OVERFLOW
+        long integer = bytes / divisor;
+        long remainder = bytes % divisor;
+        int fraction = 0;
+        for (int i = 0; i < fractionDigits; i++) {
+            remainder *= 10;
+            fraction = fraction * 10 + (int) Long.divideUnsigned(remainder, divisor);
+            remainder = Long.remainderUnsigned(remainder, divisor);
+        }
+        final int half = Long.compareUnsigned(remainder * 2, divisor);
+        if(half > 0 || (half == 0 && (fractionDigits == 0? integer : fraction) % 2 == 1)){ //half-even
+            if(++fraction == POWERS[fractionDigits]){
+                fraction = 0;
+                integer++;
+            }
+        }
+
+        length = appendGrouped(integer, chars, length);
+        int digits = fractionDigits;
+        while(digits > 0 && fraction % 10 == 0){ //no trailing zeros
+            fraction /= 10;
+            digits--;
+        }
+        if(digits > 0){
+            chars[length++] = decimal;
+            for (int i = digits-1; i >= 0; i--) {
+                chars[length+i] = (char) (zero + fraction % 10);
+                fraction /= 10;
+            }
+            length += digits;
+        }
+        chars[length++] = ' ';
+        final String name = UNITS[mode][unit];
+        name.getChars(0, name.length(), chars, length);
+        return length + name.length();
+    }
+
+    private int appendGrouped(long value, char[] chars, int start){
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        final int length = digits + (digits-1) / 3;
+        int pos = start + length - 1;
+        for (int i = 0; i < digits; i++) {
+            if(i > 0 && i % 3 == 0) chars[pos--] = grouping;
+            chars[pos--] = (char) (zero + value % 10);
+            value /= 10;
+        }
+        return start + length;
+    }
+
+    /**
+     * Parses an amount formatted by this format, or typed by a user, back to bytes.
+     * Grouping separators are ignored; the unit is optional and case-insensitive;
+     * "KiB" like units are always binary and "kB" like units follow the mode of
+     * this format. Fractions of a byte are rounded half-up.
+     *
+     * @param text text to be parsed, like {@code "1,5 MB"} or {@code "200"}
+     * @return amount of bytes
+     * @throws NumberFormatException if the text isn't a valid amount
+     */
+    public long parse(CharSequence text){
+        final String s = text.toString().trim();
+        final StringBuilder number = new StringBuilder(s.length());
+        int i = 0;
+        if(i < s.length() && (s.charAt(i) == minus || s.charAt(i) == '-')){
+            number.append('-');
+            i++;
+        }
+        for (; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if(c >= zero && c <= zero+9) number.append((char) ('0' + (c-zero)));
+            else if(c >= '0' && c <= '9') number.append(c);
+            else if(c == decimal) number.append('.');
+            else if(c == grouping || (Character.isSpaceChar(grouping) && Character.isSpaceChar(c) && i+1 < s.length() && Character.isDigit(s.charAt(i+1)))) continue;
+            else break;
+        }
+        final String unit = s.substring(i).trim();
+        try{
+            BigDecimal value = new BigDecimal(number.toString());
+            value = value.multiply(BigDecimal.valueOf(getMultiplier(unit)));
+            return value.setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }catch(ArithmeticException | NumberFormatException ex){
+            throw new NumberFormatException("invalid size \""+text+"\"");
+        }
+    }
+
+    private long getMultiplier(String unit){
+        if(unit.isEmpty()) return 1;
+        for (int m = 0; m < UNITS.length; m++) {
+            for (int u = 0; u < UNITS[m].length; u++) {
+                if(UNITS[m][u].equalsIgnoreCase(unit)){
+                    return m == IEC? 1L << (10*u) : divisors[u];
+                }
+            }
+        }
+        throw new NumberFormatException("invalid unit \""+unit+"\"");
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+}
@@ -21,6 +21,9 @@ package rubensandreoli.commons.others;
 import java.io.File;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import rubensandreoli.commons.utils.FileUtils;
 import rubensandreoli.commons.utils.StringUtils;
 
@@ -37,10 +40,11 @@ public class CachedFile extends File{
  
     public static final int SIGNATURE_BYTES = 4;
     
-    private Long size;
+    private volatile Long size;
+    private volatile Long modified;
     private String parent, filename, name, extension;
-    private byte[] signature;
-    private byte[] content;
+    private volatile byte[] signature;
+    private volatile byte[] content;
     
     public CachedFile(String pathname){
         super(pathname);
@@ -90,14 +94,92 @@ public class CachedFile extends File{
     public File toFile(){
         return new File(getPath());
     }
+    
+    // <editor-fold defaultstate="collapsed" desc=" PREFETCH "> 
+    /**
+     * Reads the signature on the shared I/O pool, so the caller can keep working
+     * while the disk is accessed. Once completed, {@code CachedFile#getRawSignature()} 
+     * returns without blocking.
+     * 
+     * @see IOExecutor#shared()
+     * @return future completed with the signature bytes, or {@code null} if the file couldn't be read
+     */
+    public CompletableFuture<byte[]> prefetchSignature(){
+        return prefetchSignature(IOExecutor.shared());
+    }
+    
+    public CompletableFuture<byte[]> prefetchSignature(Executor executor){
+        if(signature != null) return CompletableFuture.completedFuture(signature);
+        return CompletableFuture.supplyAsync(this::getRawSignature, executor);
+    }
+    
+    /**
+     * Reads the whole content on the shared I/O pool, so the caller can keep working
+     * while the disk is accessed. Once completed, {@code CachedFile#getContent()} 
+     * returns without blocking.
+     * 
+     * @see IOExecutor#shared()
+     * @return future completed with the file content, or {@code null} if the file couldn't be read
+     */
+    public CompletableFuture<byte[]> prefetchContent(){
+        return prefetchContent(IOExecutor.shared());
+    }
+    
+    public CompletableFuture<byte[]> prefetchContent(Executor executor){
+        if(content != null) return CompletableFuture.completedFuture(content);
+        return CompletableFuture.supplyAsync(this::getContent, executor);
+    }
+    
+    /**
+     * Reads the signature, and optionally the content, of all the given files on 
+     * the shared I/O pool. The reads are queued in iteration order, so files at the 
+     * start of the collection are available first.
+     * 
+     * @see CachedFile#prefetch(Collection, boolean, Executor)
+     * @param files files to be read
+     * @param content {@code true} to read the whole content; {@code false} to read only the signature
+     * @return future completed when all files were read
+     */
+    public static CompletableFuture<Void> prefetch(Collection<? extends CachedFile> files, boolean content){
+        return prefetch(files, content, IOExecutor.shared());
+    }
+    
+    public static CompletableFuture<Void> prefetch(Collection<? extends CachedFile> files, boolean content, Executor executor){
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+        int i = 0;
+        for (CachedFile file : files) {
+            futures[i++] = content? file.prefetchContent(executor) : file.prefetchSignature(executor);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+    // </editor-fold>
   
     // <editor-fold defaultstate="collapsed" desc=" GETTERS "> 
     @Override
     public long length() {
-        if(size == null) size = FileUtils.getFileSize(this);
+        //don't use FileUtils#getFileSize or it will call this method recursively
+        if(size == null){
+            try{
+                size = super.length();
+            }catch(SecurityException ex){
+                size = 0L;
+            }
+        }
         return size;
     }
 
+    @Override
+    public long lastModified() {
+        if(modified == null){
+            try{
+                modified = super.lastModified();
+            }catch(SecurityException ex){
+                modified = 0L;
+            }
+        }
+        return modified;
+    }
+
     @Override
     public String getParent() {
         if(parent == null) parent = super.getParent();
@@ -136,7 +218,7 @@ public class CachedFile extends File{
     public byte[] getContent() {
         if(content == null){
             content = FileUtils.readAllBytes(this);
-            size = (long) content.length;
+            if(content != null) size = (long) content.length;
         }
         return content;
     }
@@ -147,6 +229,23 @@ public class CachedFile extends File{
         this.size = size;
     }
 
+    /**
+     * Sets the cached last modified time, without changing the file.
+     * 
+     * @see File#setLastModified(long)
+     * @param modified time in milliseconds since the epoch
+     */
+    public void setModified(long modified) {
+        this.modified = modified;
+    }
+
+    @Override
+    public boolean setLastModified(long time) {
+        final boolean set = super.setLastModified(time);
+        if(set) modified = null; //file systems may round the time
+        return set;
+    }
+
     public void setSignature(byte[] signature) {
         this.signature = signature;
     }
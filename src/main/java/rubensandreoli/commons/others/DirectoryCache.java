@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Keeps recent directory listings, for UIs that list the same folders over and
+ * over while the user navigates.<br>
+ * A listing is reused without touching the disk for the time-to-live; after it,
+ * the directory last modified time is read and, if it didn't change, the listing
+ * is reused for another period. Changes made close to the listing time may not
+ * show in a time with coarse resolution, so those listings are always read again.
+ * Listings keep the names, sizes, times and kinds of the entries in arrays, and
+ * the least recently used are evicted when the capacity is reached.<br>
+ * Concurrent requests for the same directory wait for a single listing.
+ * Like {@code FileUtils#listChildren(File, int, boolean)}, symbolic links are followed.
+ *
+ * References:<br>
+ * https://git-scm.com/docs/racy-git<br>
+ * https://stackoverflow.com/questions/11469483/java-lru-cache-using-linkedhashmap
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class DirectoryCache {
+
+    public static final long DEFAULT_TTL = 1000; //ms
+    public static final int DEFAULT_CAPACITY = 256; //directories
+    private static final long RACY_WINDOW = 2000; //ms, coarsest common time resolution (FAT)
+
+    private static final byte FILE = 1, DIRECTORY = 2, HIDDEN = 4;
+
+    private final long ttl;
+    private final Map<String, Listing> listings;
+    private final ConcurrentMap<String, CompletableFuture<Listing>> pending = new ConcurrentHashMap<>();
+
+    public DirectoryCache() {
+        this(DEFAULT_TTL, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param ttl time in milliseconds a listing is reused without any disk access
+     * @param capacity maximum number of directories kept
+     */
+    public DirectoryCache(long ttl, int capacity) {
+        if(ttl < 0) throw new IllegalArgumentException("parameter ttl "+ttl+" < 0");
+        this.ttl = ttl;
+        listings = new LinkedHashMap<>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public List<File> list(File directory){
+        return list(directory, FileUtils.FILES_AND_DIRECTORIES, true);
+    }
+
+    /**
+     * Same as {@code FileUtils#listChildren(File, int, boolean)}, but from the cache
+     * when possible. Returned files are new {@code CachedFile}s, with their size and
+     * last modified time already set.
+     *
+     * @param directory directory to be listed
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @param showHidden {@code true} to include hidden files and directories
+     * @return the children; empty if the directory can't be read
+     */
+    public List<File> list(File directory, int mode, boolean showHidden){
+        final List<File> files = new ArrayList<>();
+        visit(directory, mode, showHidden, files::add);
+        return files;
+    }
+
+    public void visit(File directory, int mode, boolean showHidden, Consumer<File> consumer){
+        final Listing listing = get(directory);
+        if(listing == null) return;
+        for (int i = 0; i < listing.names.length; i++) {
+            final byte flags = listing.flags[i];
+            if(mode == FileUtils.FILES_ONLY && (flags & FILE) == 0) continue;
+            if(mode == FileUtils.DIRECTORIES_ONLY && (flags & DIRECTORY) == 0) continue;
+            if(!showHidden && (flags & HIDDEN) != 0) continue;
+            final CachedFile file = new CachedFile(directory, listing.names[i]);
+            if((flags & DIRECTORY) == 0) file.setSize(listing.sizes[i]);
+            file.setModified(listing.modified[i]);
+            consumer.accept(file);
+        }
+    }
+
+    private Listing get(File directory){
+        final String key = directory.getAbsolutePath();
+        Listing listing;
+        synchronized(listings){
+            listing = listings.get(key);
+        }
+        final long now = System.currentTimeMillis();
+        if(listing != null){
+            if(now - listing.validated < ttl) return listing;
+            final long modified = directory.lastModified();
+            if(modified != 0 && modified == listing.modifiedDir && listing.read - modified > RACY_WINDOW){
+                listing.validated = now;
+                return listing;
+            }
+        }
+
+        final CompletableFuture<Listing> future = new CompletableFuture<>();
+        final CompletableFuture<Listing> running = pending.putIfAbsent(key, future);
+        if(running != null) return running.join(); //deduplicated
+        try{
+            listing = read(directory);
+            synchronized(listings){
+                if(listing != null) listings.put(key, listing);
+                else listings.remove(key);
+            }
+            future.complete(listing);
+            return listing;
+        }catch(RuntimeException ex){
+            future.completeExceptionally(ex);
+            throw ex;
+        }finally{
+            pending.remove(key, future);
+        }
+    }
+
+    private static Listing read(File directory){
+        final long read = System.currentTimeMillis();
+        final long modified = directory.lastModified(); //before listing, so later changes aren't missed
+        if(!directory.isDirectory()) return null;
+        final List<Path> paths = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())){
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }catch(IOException | InvalidPathException | SecurityException | DirectoryIteratorException ex){
+            return null;
+        }
+        final Listing listing = new Listing(paths.size(), modified, read);
+        int i = 0;
+        for (Path path : paths) {
+            byte flags = 0;
+            try{
+                BasicFileAttributes attrs;
+                try{
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                }catch(IOException ex){ //broken link
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                }
+                if(attrs.isRegularFile()) flags |= FILE;
+                else if(attrs.isDirectory()) flags |= DIRECTORY;
+                if(!attrs.isDirectory()) listing.sizes[i] = attrs.size();
+                listing.modified[i] = attrs.lastModifiedTime().toMillis();
+                if(Files.isHidden(path)) flags |= HIDDEN;
+            }catch(IOException | SecurityException ex){
+                continue; //vanished
+            }
+            listing.names[i] = path.getFileName().toString();
+            listing.flags[i] = flags;
+            i++;
+        }
+        listing.trim(i);
+        return listing;
+    }
+
+    /**
+     * Discards the listing of a directory, so it's read again on the next request.
+     *
+     * @param directory directory to be read again
+     */
+    public void invalidate(File directory){
+        synchronized(listings){
+            listings.remove(directory.getAbsolutePath());
+        }
+    }
+
+    public void clear(){
+        synchronized(listings){
+            listings.clear();
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" LISTING ">
+    private static class Listing {
+        private String[] names;
+        private long[] sizes;
+        private long[] modified;
+        private byte[] flags;
+        private final long modifiedDir; //directory time when read
+        private final long read;
+        private volatile long validated;
+
+        private Listing(int size, long modifiedDir, long read) {
+            names = new String[size];
+            sizes = new long[size];
+            modified = new long[size];
+            flags = new byte[size];
+            this.modifiedDir = modifiedDir;
+            this.read = read;
+            validated = read;
+        }
+
+        private void trim(int size){
+            if(size == names.length) return;
+            names = Arrays.copyOf(names, size);
+            sizes = Arrays.copyOf(sizes, size);
+            modified = Arrays.copyOf(modified, size);
+            flags = Arrays.copyOf(flags, size);
+        }
+    }
+    // </editor-fold>
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Window of the entries of a directory, in the order of the file system.<br>
+ * The continuation token identifies the last entry of the window by its position
+ * and name, so the next page resumes right after that entry even if entries
+ * before it were deleted meanwhile; the position is only used if that entry
+ * itself was removed.
+ *
+ * @see rubensandreoli.commons.utils.FileUtils#listPage(File, int, boolean, String, int)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class DirectoryPage {
+
+    private static final char TOKEN_SEPARATOR = '/'; //never part of a name
+
+    private final List<File> files;
+    private final int offset;
+    private final boolean more;
+
+    public DirectoryPage(List<File> files, int offset, boolean more) {
+        this.files = Collections.unmodifiableList(files);
+        this.offset = offset;
+        this.more = more;
+    }
+
+    /**
+     * @return token to request the next page; or {@code null} if this is the last page
+     */
+    public String getToken(){
+        if(!more) return null;
+        final int next = offset + files.size();
+        if(files.isEmpty()) return String.valueOf(next);
+        return next + String.valueOf(TOKEN_SEPARATOR) + files.get(files.size()-1).getName();
+    }
+
+    /**
+     * @param token continuation token
+     * @return position of the next entry
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static int getTokenOffset(String token){
+        final int index = token.indexOf(TOKEN_SEPARATOR);
+        try{
+            return Integer.parseInt(index == -1? token : token.substring(0, index));
+        }catch(NumberFormatException ex){
+            throw new IllegalArgumentException("invalid token "+token, ex);
+        }
+    }
+
+    /**
+     * @param token continuation token
+     * @return name of the last entry of the previous page; or {@code null} if none
+     */
+    public static String getTokenName(String token){
+        final int index = token.indexOf(TOKEN_SEPARATOR);
+        return index == -1? null : token.substring(index+1);
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return position of the first entry of this page among the listed entries
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean hasMore() {
+        return more;
+    }
+
+}
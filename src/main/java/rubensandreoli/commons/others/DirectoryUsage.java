@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Disk usage of a directory tree, with the subtotals of each child directory.
+ * 
+ * @see UsageCalculator
+ * @author Rubens A. Andreoli Jr.
+ */
+public class DirectoryUsage {
+    
+    public static final int HISTOGRAM_BUCKETS = 64;
+    
+    private final File directory;
+    private final long size, files, folders;
+    private final long[] histogram;
+    private final List<DirectoryUsage> children;
+
+    public DirectoryUsage(File directory, long size, long files, long folders, long[] histogram, List<DirectoryUsage> children) {
+        this.directory = directory;
+        this.size = size;
+        this.files = files;
+        this.folders = folders;
+        this.histogram = histogram;
+        this.children = Collections.unmodifiableList(children);
+    }
+    
+    /**
+     * Returns the bucket of a file size in the histogram. Bucket {@literal 0} 
+     * holds empty files, and bucket {@literal n} holds sizes from {@literal 2^(n-1)} 
+     * to {@literal 2^n - 1} bytes.
+     * 
+     * @param size file size in bytes
+     * @return histogram index
+     */
+    public static int getBucket(long size){
+        return size <= 0? 0 : 64 - Long.numberOfLeadingZeros(size);
+    }
+    
+    public static long getBucketLowerBound(int bucket){
+        return bucket == 0? 0 : 1L << (bucket-1);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return sum of the size of all files in the tree, in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * @return number of directories in the tree, not counting this one
+     */
+    public long getFolders() {
+        return folders;
+    }
+
+    /**
+     * Returns how many files of the tree fall in each size range.
+     * 
+     * @see DirectoryUsage#getBucket(long)
+     * @return copy of the histogram, with {@code DirectoryUsage#HISTOGRAM_BUCKETS} buckets
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public List<DirectoryUsage> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return directory+" "+size+" bytes ("+files+" files, "+folders+" folders)";
+    }
+    
+}
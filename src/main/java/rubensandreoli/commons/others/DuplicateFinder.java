@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Finds files with identical content, reading as little as possible from disk.<br>
+ * Candidates are eliminated in stages, and only files that still collide move
+ * on to the next, more expensive, stage:
+ * <ol>
+ * <li>size;</li>
+ * <li>signature ({@code CachedFile#SIGNATURE_BYTES} first bytes);</li>
+ * <li>hash of the first and last {@code DuplicateFinder#PARTIAL_BYTES} bytes;</li>
+ * <li>hash of the whole content.</li>
+ * </ol>
+ * The keys of each stage are computed concurrently on the given executor.
+ * Files that can't be read are left out of the result.
+ *
+ * References:<br>
+ * https://stackoverflow.com/questions/3662239/how-do-i-find-duplicate-files-quickly<br>
+ * https://github.com/pkolaczk/fclones
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class DuplicateFinder {
+
+    public static final int PARTIAL_BYTES = 64 * 1024;
+    private static final String ALGORITHM = "SHA-256";
+
+    private final Executor executor;
+
+    public DuplicateFinder() {
+        this(IOExecutor.shared());
+    }
+
+    public DuplicateFinder(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Groups files with the same content. Directories are ignored, so the output of
+     * {@code FileUtils#scanChildren(File)} can be used directly.
+     *
+     * @param files files to be compared
+     * @return list of duplicate sets, each one with at least two files
+     */
+    public List<List<CachedFile>> find(Collection<? extends File> files){
+        List<List<CachedFile>> groups = new ArrayList<>(1);
+        final List<CachedFile> all = new ArrayList<>(files.size());
+        for (File file : files) {
+            all.add(file instanceof CachedFile? (CachedFile) file : new CachedFile(file));
+        }
+        groups.add(all);
+
+        groups = regroup(groups, f -> f.isFile()? f.length() : null);
+        final List<List<CachedFile>> duplicates = new ArrayList<>();
+
+        groups = regroup(groups, f -> {
+            final byte[] signature = f.getRawSignature();
+            return signature == null? null : ByteBuffer.wrap(signature);
+        });
+        groups = settle(groups, CachedFile.SIGNATURE_BYTES, duplicates); //signature is the whole content
+
+        groups = regroup(groups, DuplicateFinder::hashEdges);
+        groups = settle(groups, PARTIAL_BYTES * 2L, duplicates); //edges are the whole content
+
+        groups = regroup(groups, DuplicateFinder::hashContent);
+        duplicates.addAll(groups);
+
+        return duplicates;
+    }
+
+    /**
+     * Moves groups of files small enough to have been completely compared by
+     * the last stage to the result list.
+     */
+    private static List<List<CachedFile>> settle(List<List<CachedFile>> groups, long compared, List<List<CachedFile>> duplicates){
+        final List<List<CachedFile>> remaining = new ArrayList<>(groups.size());
+        for (List<CachedFile> group : groups) {
+            if(group.get(0).length() <= compared) duplicates.add(group);
+            else remaining.add(group);
+        }
+        return remaining;
+    }
+
+    /**
+     * Splits every group by the key computed for each of its files, keeping only
+     * the sub-groups with more than one file. Files with a {@code null} key are discarded.
+     */
+    private <K> List<List<CachedFile>> regroup(List<List<CachedFile>> groups, Function<CachedFile, K> key){
+        final List<List<CompletableFuture<K>>> keys = new ArrayList<>(groups.size());
+        for (List<CachedFile> group : groups) {
+            final List<CompletableFuture<K>> groupKeys = new ArrayList<>(group.size());
+            for (CachedFile file : group) {
+                groupKeys.add(CompletableFuture.supplyAsync(() -> key.apply(file), executor));
+            }
+            keys.add(groupKeys);
+        }
+
+        final List<List<CachedFile>> regrouped = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            final List<CachedFile> group = groups.get(i);
+            final List<CompletableFuture<K>> groupKeys = keys.get(i);
+            final Map<K, List<CachedFile>> split = new LinkedHashMap<>();
+            for (int j = 0; j < group.size(); j++) {
+                final K k = groupKeys.get(j).join();
+                if(k != null) split.computeIfAbsent(k, x -> new ArrayList<>(2)).add(group.get(j));
+            }
+            for (List<CachedFile> candidates : split.values()) {
+                if(candidates.size() > 1) regrouped.add(candidates);
+            }
+        }
+        return regrouped;
+    }
+
+    private static ByteBuffer hashEdges(CachedFile file){
+        final long length = file.length();
+        try(var raf = new RandomAccessFile(file, "r")){
+            final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            final byte[] buffer = new byte[(int) Math.min(PARTIAL_BYTES, length)];
+            raf.readFully(buffer);
+            digest.update(buffer);
+            raf.seek(Math.max(buffer.length, length - PARTIAL_BYTES));
+            final int read = raf.read(buffer);
+            if(read > 0) digest.update(buffer, 0, read);
+            return ByteBuffer.wrap(digest.digest());
+        }catch(IOException | NoSuchAlgorithmException ex){
+            return null;
+        }
+    }
+
+    private static ByteBuffer hashContent(CachedFile file){
+        try(InputStream in = new FileInputStream(file)){
+            final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            final byte[] buffer = new byte[FileUtils.DEFAULT_BUFFER_SIZE * 16];
+            int read;
+            while((read = in.read(buffer)) != -1){
+                digest.update(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(digest.digest());
+        }catch(IOException | NoSuchAlgorithmException ex){
+            return null;
+        }
+    }
+
+}
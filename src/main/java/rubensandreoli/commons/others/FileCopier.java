@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Copies files and directory trees concurrently.<br>
+ * The tree is scanned and its folders are created first, then the files are
+ * copied on a bounded pool with {@code FileUtils#copyFile(File, File)}, that
+ * transfers the bytes without bringing them into the heap. Files already present
+ * at the destination with the same size and last modified time are skipped, which
+ * makes repeating a copy cheap.
+ *
+ * References:<br>
+ * https://developer.ibm.com/articles/j-zerocopy/<br>
+ * https://docs.oracle.com/javase/tutorial/essential/io/copy.html
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FileCopier {
+
+    private final int threads;
+    private boolean skipIdentical = true;
+    private boolean preserveAttributes = true;
+
+    public FileCopier() {
+        this(IOExecutor.DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads number of files copied at the same time, must be positive
+     */
+    public FileCopier(int threads) {
+        if(threads < 1) throw new IllegalArgumentException("parameter threads "+threads+" < 1");
+        this.threads = threads;
+    }
+
+    /**
+     * Copies a file or a whole directory tree, blocking until all files are done.
+     * Hidden files are included. Existing files at the destination are overwritten,
+     * unless they are identical and skipping is enabled.
+     *
+     * @param source file or directory to be copied
+     * @param target destination file, or directory that will mirror the source directory
+     * @param listener receives each outcome as soon as it's ready, on the worker threads; or {@code null}
+     * @return aggregated outcomes
+     */
+    public TransferReport copy(File source, File target, TransferListener listener){
+        final List<File[]> pairs = new ArrayList<>();
+        final List<File[]> folders = new ArrayList<>();
+        if(source.isDirectory()){
+            final Path root = source.toPath();
+            for (File file : FileUtils.scanChildren(source, FileUtils.FILES_AND_DIRECTORIES, true)) {
+                final File dest = target.toPath().resolve(root.relativize(file.toPath())).toFile();
+                if(file.isDirectory()){
+                    dest.mkdirs(); //parents come before children in the scan
+                    folders.add(new File[]{file, dest});
+                }else{
+                    pairs.add(new File[]{file, dest});
+                }
+            }
+        }else{
+            final File parent = target.getParentFile();
+            if(parent != null) parent.mkdirs();
+            pairs.add(new File[]{source, target});
+        }
+
+        final TransferReport report = new TransferReport(pairs.size());
+        final ExecutorService pool = IOExecutor.create(threads, "copy");
+        try{
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[pairs.size()];
+            for (int i = 0; i < futures.length; i++) {
+                final File[] pair = pairs.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    final TransferResult result = copyFile(pair[0], pair[1]);
+                    report.add(result);
+                    if(listener != null) listener.transferred(result, report);
+                }, pool);
+            }
+            CompletableFuture.allOf(futures).join();
+        }finally{
+            pool.shutdown();
+            report.finish();
+        }
+
+        if(preserveAttributes){
+            for (int i = folders.size()-1; i >= 0; i--) { //children first, so their copy doesn't touch the parent again
+                final File[] pair = folders.get(i);
+                copyAttributes(pair[0], pair[1], true);
+            }
+        }
+        return report;
+    }
+
+    private TransferResult copyFile(File source, File target){
+        if(skipIdentical && target.isFile() && target.length() == source.length() && target.lastModified() == source.lastModified()){
+            return new TransferResult(source, target, TransferResult.SKIPPED, 0, null);
+        }
+        try{
+            final long bytes = FileUtils.copyFile(source, target, preserveAttributes);
+            if(preserveAttributes) copyAttributes(source, target, false);
+            return new TransferResult(source, target, TransferResult.COPIED, bytes, null);
+        }catch(IOException | SecurityException ex){
+            return new TransferResult(source, target, TransferResult.FAILED, 0, ex);
+        }
+    }
+
+    private static void copyAttributes(File source, File target, boolean times){
+        try{
+            final PosixFileAttributeView view = Files.getFileAttributeView(source.toPath(), PosixFileAttributeView.class);
+            if(view != null){
+                Files.setPosixFilePermissions(target.toPath(), view.readAttributes().permissions());
+            }else if(!source.canWrite()){
+                target.setWritable(false);
+            }
+            if(times) Files.setLastModifiedTime(target.toPath(), Files.getLastModifiedTime(source.toPath()));
+        }catch(IOException | UnsupportedOperationException | SecurityException ex){
+            Logger.log.print(Level.WARNING, "failed copying attributes of "+source, ex);
+        }
+    }
+
+    /**
+     * @param b if true, destination files with the same size and last modified
+     *          time as the source are not copied again
+     */
+    public void setSkipIdentical(boolean b) {
+        skipIdentical = b;
+    }
+
+    /**
+     * @param b if true, permissions and last modified time of files and folders are copied
+     */
+    public void setPreserveAttributes(boolean b) {
+        preserveAttributes = b;
+    }
+
+}
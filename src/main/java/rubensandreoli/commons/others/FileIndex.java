@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Compact in-memory result of a directory tree scan.<br>
+ * Instead of one {@code File} per entry, with its own copy of the whole pathname,
+ * entries are stored as a struct of arrays: each entry is an id, in pre-order,
+ * pointing to its parent id and to the id of its name in a table of interned
+ * segments; so the pathnames form a trie where repeated folder and file names
+ * are stored once. Sizes and last modified times are kept in parallel columns,
+ * read once during the scan.<br>
+ * The columns may be allocated off-heap, so millions of entries don't weigh on
+ * the garbage collector; segments always stay on the heap.
+ * {@code CachedFile}s are only created when iterated, with their size and time already set.<br>
+ * Pre-order ids make every subtree a contiguous range starting at its directory.
+ * The index is immutable after being built, and thread-safe.
+ *
+ * References:<br>
+ * https://en.wikipedia.org/wiki/AoS_and_SoA<br>
+ * https://en.wikipedia.org/wiki/Trie<br>
+ * https://shipilev.net/jvm/objects-inside-out/
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FileIndex implements Iterable<CachedFile> {
+
+    public static final int ROOT = 0;
+    public static final int NO_PARENT = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int size;
+    private final String[] segments;
+    private final IntBuffer parents;
+    private final IntBuffer names;
+    private final LongBuffer sizes;
+    private final LongBuffer modified;
+    private final BitSet directories;
+    private final boolean offHeap;
+
+    private FileIndex(Builder builder, boolean offHeap) {
+        size = builder.size;
+        segments = builder.segments.toArray(new String[builder.segments.size()]);
+        this.offHeap = offHeap;
+        if(offHeap){
+            parents = allocate(size).asIntBuffer().put(builder.parents, 0, size);
+            names = allocate(size).asIntBuffer().put(builder.names, 0, size);
+            sizes = allocate(size * 2).asLongBuffer().put(builder.sizes, 0, size);
+            modified = allocate(size * 2).asLongBuffer().put(builder.modified, 0, size);
+        }else{
+            parents = IntBuffer.wrap(Arrays.copyOf(builder.parents, size));
+            names = IntBuffer.wrap(Arrays.copyOf(builder.names, size));
+            sizes = LongBuffer.wrap(Arrays.copyOf(builder.sizes, size));
+            modified = LongBuffer.wrap(Arrays.copyOf(builder.modified, size));
+        }
+        directories = builder.directories;
+    }
+
+    private static ByteBuffer allocate(int ints){
+        return ByteBuffer.allocateDirect(ints * Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Scans a directory tree into a heap index, excluding hidden entries.
+     *
+     * @see FileIndex#build(File, boolean, boolean)
+     * @param root directory to be scanned
+     * @return the index; or {@code null} if the root isn't a directory
+     */
+    public static FileIndex build(File root){
+        return build(root, false, false);
+    }
+
+    /**
+     * Scans a directory tree into an index, with the root as the entry {@code FileIndex#ROOT}.
+     * Symbolic links are not followed. Entries that can't be read are left out.
+     * Off-heap indexes are limited to about 268 million entries.
+     *
+     * @param root directory to be scanned
+     * @param showHidden {@code true} to include hidden files and directories
+     * @param offHeap {@code true} to allocate the columns outside the heap
+     * @return the index; or {@code null} if the root isn't a directory
+     */
+    public static FileIndex build(File root, boolean showHidden, boolean offHeap){
+        if(!root.isDirectory()) return null;
+        final Builder builder = new Builder();
+        final Deque<Pending> stack = new ArrayDeque<>();
+        stack.push(new Pending(root.toPath(), FileUtils.normalize(root.getPath()), NO_PARENT, true, 0, root.lastModified()));
+        final List<Pending> children = new ArrayList<>();
+        while(!stack.isEmpty()){
+            final Pending entry = stack.pop();
+            final int id = builder.add(entry);
+            if(!entry.directory) continue;
+            children.clear();
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(entry.path)){
+                for (Path path : stream) {
+                    try{
+                        if(!showHidden && Files.isHidden(path)) continue;
+                        final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        children.add(new Pending(path, path.getFileName().toString(), id, attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }catch(IOException | SecurityException ex){} //vanished or not accessible
+                }
+            }catch(IOException | SecurityException ex){} //not accessible, kept empty
+            for (int i = children.size()-1; i >= 0; i--) { //popped in listing order
+                stack.push(children.get(i));
+            }
+        }
+        return new FileIndex(builder, offHeap);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" ENTRIES ">
+    public int size(){
+        return size;
+    }
+
+    public int getParent(int id){
+        return parents.get(id);
+    }
+
+    /**
+     * @param id entry id
+     * @return name of the entry; or the whole normalized pathname for the root
+     */
+    public String getName(int id){
+        return segments[names.get(id)];
+    }
+
+    /**
+     * @param id entry id
+     * @return id of the name in the table of segments, equal for entries with equal names
+     */
+    public int getSegment(int id){
+        return names.get(id);
+    }
+
+    public String getSegmentName(int segment){
+        return segments[segment];
+    }
+
+    public int getSegmentCount(){
+        return segments.length;
+    }
+
+    /**
+     * Rebuilds the pathname of an entry walking up its parents.
+     *
+     * @param id entry id
+     * @return pathname of the entry
+     */
+    public String getPath(int id){
+        int depth = 0;
+        for (int i = id; i != NO_PARENT; i = parents.get(i)) depth++;
+        final int[] chain = new int[depth];
+        for (int i = id; i != NO_PARENT; i = parents.get(i)) chain[--depth] = i;
+        final StringBuilder sb = new StringBuilder(getName(chain[0]));
+        for (int i = 1; i < chain.length; i++) {
+            if(sb.length() == 0 || sb.charAt(sb.length()-1) != File.separatorChar) sb.append(File.separatorChar);
+            sb.append(getName(chain[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param id entry id
+     * @return size in bytes as read during the scan; or {@code 0} for directories
+     */
+    public long getSize(int id){
+        return sizes.get(id);
+    }
+
+    public long getLastModified(int id){
+        return modified.get(id);
+    }
+
+    public boolean isDirectory(int id){
+        return directories.get(id);
+    }
+
+    /**
+     * Creates a {@code CachedFile} for an entry, with the size and last modified
+     * time read during the scan.
+     *
+     * @param id entry id
+     * @return new file
+     */
+    public CachedFile getFile(int id){
+        final CachedFile file = new CachedFile(getPath(id));
+        if(!isDirectory(id)) file.setSize(getSize(id));
+        file.setModified(getLastModified(id));
+        return file;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" ITERATORS ">
+    /**
+     * Iterates over all entries but the root, creating each {@code CachedFile} on demand.
+     */
+    @Override
+    public Iterator<CachedFile> iterator() {
+        return iterator(FileUtils.FILES_AND_DIRECTORIES);
+    }
+
+    /**
+     * Iterates over the entries but the root, in pre-order, creating each
+     * {@code CachedFile} on demand.
+     *
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @return the iterator
+     */
+    public Iterator<CachedFile> iterator(int mode){
+        return new Iterator<>() {
+            private int next = find(ROOT+1);
+
+            private int find(int from){
+                for (int i = from; i < size; i++) {
+                    if(mode == FileUtils.FILES_AND_DIRECTORIES || (mode == FileUtils.DIRECTORIES_ONLY) == isDirectory(i)) return i;
+                }
+                return size;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public CachedFile next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                final CachedFile file = getFile(next);
+                next = find(next+1);
+                return file;
+            }
+        };
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" FOOTPRINT ">
+    /**
+     * Estimates the memory used by the index, assuming compressed references
+     * and compact strings.
+     *
+     * @return estimated bytes, on and off the heap
+     */
+    public long getFootprint(){
+        long bytes = (long) size * (Integer.BYTES * 2 + Long.BYTES * 2) + size / Byte.SIZE;
+        bytes += segments.length * 4L; //references
+        for (String segment : segments) {
+            bytes += 24 + align(16 + segment.length()); //object and array, as latin1
+        }
+        return bytes;
+    }
+
+    private static long align(long bytes){
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Returns a summary of the memory used, and the average per million entries,
+     * like {@code "1,000,000 entries, 12,345 segments: 27.1 MB (27.1 MB per million), off-heap"}.
+     *
+     * @return the report
+     */
+    public String getFootprintReport(){
+        final ByteSizeFormat format = ByteSizeFormat.getInstance();
+        final long footprint = getFootprint();
+        final StringBuilder sb = new StringBuilder()
+                .append(String.format("%,d", size)).append(" entries, ")
+                .append(String.format("%,d", segments.length)).append(" segments: ");
+        format.format(footprint, sb).append(" (");
+        format.format(size == 0? 0 : footprint * 1_000_000 / size, sb).append(" per million)");
+        sb.append(offHeap? ", off-heap" : ", on-heap");
+        return sb.toString();
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" BUILDER ">
+    private static class Pending {
+        private final Path path;
+        private final String name;
+        private final int parent;
+        private final boolean directory;
+        private final long size, modified;
+
+        private Pending(Path path, String name, int parent, boolean directory, long size, long modified) {
+            this.path = path;
+            this.name = name;
+            this.parent = parent;
+            this.directory = directory;
+            this.size = directory? 0 : size;
+            this.modified = modified;
+        }
+    }
+
+    private static class Builder {
+        private int size;
+        private int[] parents = new int[INITIAL_CAPACITY];
+        private int[] names = new int[INITIAL_CAPACITY];
+        private long[] sizes = new long[INITIAL_CAPACITY];
+        private long[] modified = new long[INITIAL_CAPACITY];
+        private final BitSet directories = new BitSet();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> segments = new ArrayList<>();
+
+        private int add(Pending entry){
+            if(size == parents.length){
+                final int capacity = size * 2;
+                parents = Arrays.copyOf(parents, capacity);
+                names = Arrays.copyOf(names, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                modified = Arrays.copyOf(modified, capacity);
+            }
+            Integer segment = ids.get(entry.name);
+            if(segment == null){
+                segment = segments.size();
+                segments.add(entry.name);
+                ids.put(entry.name, segment);
+            }
+            parents[size] = entry.parent;
+            names[size] = segment;
+            sizes[size] = entry.size;
+            modified[size] = entry.modified;
+            if(entry.directory) directories.set(size);
+            return size++;
+        }
+    }
+    // </editor-fold>
+
+}
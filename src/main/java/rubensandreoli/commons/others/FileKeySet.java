@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of file identities already visited by a scan, to detect the same file or
+ * directory reached through different paths.<br>
+ * Where the file system exposes them, identities are the device and inode numbers,
+ * kept as pairs of primitives in an open addressing table, with no object per
+ * entry. Other file systems use the {@code BasicFileAttributes#fileKey()}
+ * objects, or any other key given, in a regular set.<br>
+ * Not thread-safe.
+ *
+ * References:<br>
+ * https://docs.oracle.com/javase/8/docs/api/java/nio/file/attribute/BasicFileAttributes.html#fileKey--<br>
+ * https://en.wikipedia.org/wiki/Open_addressing
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FileKeySet {
+
+    private static final int INITIAL_CAPACITY = 64; //pairs, power of two
+    private static final long EMPTY = 0; //inode 0 is never used
+
+    private long[] table = new long[INITIAL_CAPACITY * 2]; //device, inode
+    private int pairs;
+    private Set<Long> zeros; //devices of inode 0, reported anyway
+    private Set<Object> keys;
+
+    /**
+     * @param device device number
+     * @param inode inode number
+     * @return {@code true} if the identity wasn't in the set
+     */
+    public boolean add(long device, long inode){
+        if(inode == EMPTY){
+            if(zeros == null) zeros = new HashSet<>();
+            return zeros.add(device);
+        }
+        if((pairs+1) * 4 > table.length * 3 / 2) grow(); //75% load
+        if(!insert(table, device, inode)) return false;
+        pairs++;
+        return true;
+    }
+
+    private static boolean insert(long[] table, long device, long inode){
+        final int mask = table.length/2 - 1;
+        for (int i = hash(device, inode) & mask;; i = (i+1) & mask) {
+            final int slot = i*2;
+            if(table[slot+1] == EMPTY){
+                table[slot] = device;
+                table[slot+1] = inode;
+                return true;
+            }
+            if(table[slot+1] == inode && table[slot] == device) return false;
+        }
+    }
+
+    private static int hash(long device, long inode){
+        long h = inode * 0x9E3779B97F4A7C15L + device;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    private void grow(){
+        final long[] grown = new long[table.length * 2];
+        for (int slot = 0; slot < table.length; slot += 2) {
+            if(table[slot+1] != EMPTY) insert(grown, table[slot], table[slot+1]);
+        }
+        table = grown;
+    }
+
+    /**
+     * @param key {@code BasicFileAttributes#fileKey()}, or another unique identity
+     * @return {@code true} if the key wasn't in the set
+     */
+    public boolean add(Object key){
+        if(keys == null) keys = new HashSet<>();
+        return keys.add(key);
+    }
+
+    public int size(){
+        return pairs + (zeros == null? 0 : zeros.size()) + (keys == null? 0 : keys.size());
+    }
+
+    public void clear(){
+        table = new long[INITIAL_CAPACITY * 2];
+        pairs = 0;
+        zeros = null;
+        keys = null;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Moves many files concurrently.<br>
+ * Each file is renamed with {@code Files#move} and {@code ATOMIC_MOVE}, that is a
+ * single system call when source and destination are on the same filesystem.
+ * Across devices, where a rename isn't possible, the file is copied with
+ * {@code FileUtils#copyFile(File, File)} and then deleted.<br>
+ * Name clashes are resolved in memory by a {@code FilePlacer}, so the destination
+ * folders are listed only once. Files created there by other processes afterwards
+ * are never overwritten: each reserved name is checked before the move, and copies
+ * only create new files. Call {@code FileMover#forget(File)} to list a folder again.
+ *
+ * References:<br>
+ * https://docs.oracle.com/javase/tutorial/essential/io/move.html<br>
+ * https://stackoverflow.com/questions/300559/move-copy-file-operations-in-java
+ *
+ * @see FileUtils#moveFileTo(File, String)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FileMover {
+
+    private final int threads;
+    private final FilePlacer placer = new FilePlacer();
+    private final ConcurrentMap<String, Boolean> folders = new ConcurrentHashMap<>();
+
+    public FileMover() {
+        this(IOExecutor.DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads number of files moved at the same time, must be positive
+     */
+    public FileMover(int threads) {
+        if(threads < 1) throw new IllegalArgumentException("parameter threads "+threads+" < 1");
+        this.threads = threads;
+    }
+
+    public TransferReport moveTo(Collection<? extends File> files, File folder, TransferListener listener){
+        return move(files, f -> folder, listener);
+    }
+
+    /**
+     * Moves files into child folders of their current parent, like
+     * {@code FileUtils#moveFileToChild(File, String)} does for a single file.
+     *
+     * @param files files to be moved
+     * @param subfolder function that gives the name of the child folder of each file
+     * @param listener receives each outcome; or {@code null}
+     * @return aggregated outcomes
+     */
+    public TransferReport moveToChild(Collection<? extends File> files, Function<File, String> subfolder, TransferListener listener){
+        return move(files, f -> new File(f.getParentFile(), subfolder.apply(f)), listener);
+    }
+
+    /**
+     * Moves files concurrently, blocking until all of them are done. Destination
+     * folders are created if they don't exist.
+     *
+     * @param files files to be moved
+     * @param destination function that gives the destination folder of each file
+     * @param listener receives each outcome as soon as it's ready, on the worker threads; or {@code null}
+     * @return aggregated outcomes
+     */
+    public TransferReport move(Collection<? extends File> files, Function<File, File> destination, TransferListener listener){
+        final TransferReport report = new TransferReport(files.size());
+        final ExecutorService pool = IOExecutor.create(threads, "move");
+        try{
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+            int i = 0;
+            for (File file : files) {
+                futures[i++] = CompletableFuture.runAsync(() -> {
+                    final TransferResult result = move(file, destination.apply(file));
+                    report.add(result);
+                    if(listener != null) listener.transferred(result, report);
+                }, pool);
+            }
+            CompletableFuture.allOf(futures).join();
+        }finally{
+            pool.shutdown();
+            report.finish();
+        }
+        return report;
+    }
+
+    private TransferResult move(File file, File folder){
+        folders.computeIfAbsent(folder.getAbsolutePath(), k -> folder.mkdirs()); //other threads wait for it
+        if(isSameFolder(file.getParentFile(), folder)){ //already in place, don't rename it
+            return new TransferResult(file, file, TransferResult.MOVED, 0, null);
+        }
+        File target = reserve(folder, file.getName());
+        boolean copying = false;
+        try{
+            try{
+                Files.move(file.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                return new TransferResult(file, target, TransferResult.MOVED, 0, null);
+            }catch(AtomicMoveNotSupportedException ex){ //different filesystems
+                long bytes;
+                while(true){
+                    try{
+                        copying = true;
+                        bytes = FileUtils.copyFile(file, target, true, false);
+                        break;
+                    }catch(FileAlreadyExistsException exists){ //created after it was checked, not ours
+                        copying = false;
+                        target = reserve(folder, file.getName());
+                    }
+                }
+                Files.delete(file.toPath());
+                return new TransferResult(file, target, TransferResult.MOVED, bytes, null);
+            }
+        }catch(IOException | SecurityException ex){
+            if(copying && file.exists()) FileUtils.deleteFile(target); //partial or duplicated copy
+            if(!target.exists()) placer.release(target);
+            return new TransferResult(file, target, TransferResult.FAILED, 0, ex);
+        }
+    }
+
+    /**
+     * Reserves a name in the folder, skipping names of files created there after
+     * it was listed, which stay reserved.
+     */
+    private File reserve(File folder, String name){
+        File target = placer.place(folder, name);
+        while(target.exists()){
+            target = placer.place(folder, name);
+        }
+        return target;
+    }
+
+    /**
+     * Discards the names known of a folder, so it's listed again by the next move into it.
+     *
+     * @param folder destination folder to be forgotten
+     */
+    public void forget(File folder){
+        placer.forget(folder);
+        folders.remove(folder.getAbsolutePath());
+    }
+
+    public void clear(){
+        placer.clear();
+        folders.clear();
+    }
+
+    private static boolean isSameFolder(File parent, File folder){
+        if(parent == null) return false;
+        try{
+            return parent.getCanonicalFile().equals(folder.getCanonicalFile());
+        }catch(IOException | SecurityException ex){
+            return parent.getAbsoluteFile().equals(folder.getAbsoluteFile());
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Bulk alternative to {@code FileUtils#createValidFile(File, String, String)}.<br>
+ * Each target folder is listed only once, and its names are kept in memory, so
+ * resolving a clash doesn't probe the disk for every {@literal " (n)"} suffix.
+ * Names are reserved atomically, so concurrent writers using the same instance
+ * never get the same file. Files created in the folder by other processes after
+ * it was listed are not seen, call {@code FilePlacer#forget(File)} to list it again.<br>
+ * Names are always compared ignoring case, since case-insensitive file systems,
+ * like NTFS and the APFS default, can't be told apart from a pathname.
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FilePlacer {
+
+    private final ConcurrentMap<String, CompletableFuture<FolderIndex>> folders = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a valid {@code File} conforming the filename to Windows OS
+     * standards, and reserves its name so no other call returns it. It removes all
+     * invalid characters; reduces the maximum filename length to fit the given
+     * pathname; and resolve duplicated files, with the same rules as
+     * {@code FileUtils#createValidFile(File, String, String)}.
+     *
+     * @param folder directory {@code File} where the file will be saved,
+     *              must not be {@code null}
+     * @param filename name of the file without extension, must not be {@code null}
+     * @param extension extension of the file with {@literal '.'} (Dot) at the start,
+     *                  must not be {@code null}
+     * @return valid {@code File} ready to be saved; or {@code null} if the folder
+     *         pathname is too long to fit any name
+     */
+    public File reserve(File folder, String filename, String extension){
+        filename = FileUtils.sanitizeFilename(filename);
+        extension = FileUtils.sanitizeExtension(extension);
+
+        final int length = new File(folder, filename+extension).getAbsolutePath().length();
+        if(length > FileUtils.FILEPATH_MAX_LENGTH){
+            final int toRemove = length - FileUtils.FILEPATH_MAX_LENGTH;
+            if(filename.length() <= toRemove) return null;
+            filename = filename.substring(0, filename.length()-toRemove);
+        }
+
+        return new File(folder, getIndex(folder).reserve(filename, extension));
+    }
+
+    public File reserve(File folder, String file){
+        return reserve(folder, FileUtils.getFilename(file), FileUtils.getExtension(file));
+    }
+
+    /**
+     * Reserves a name that is already valid, like the name of an existing file
+     * being moved, without sanitizing or trimming it. Only clashes are resolved,
+     * appending {@literal " (n)"} before the last {@literal '.'} (dot).
+     *
+     * @param folder directory {@code File} where the file will be placed,
+     *              must not be {@code null}
+     * @param name name of the file with extension, must not be {@code null}
+     * @return {@code File} with a name not used in the folder
+     */
+    public File place(File folder, String name){
+        final int extIndex = name.lastIndexOf('.');
+        final String filename = extIndex > 0? name.substring(0, extIndex) : name;
+        final String extension = extIndex > 0? name.substring(extIndex) : "";
+        return new File(folder, getIndex(folder).reserve(filename, extension));
+    }
+
+    /**
+     * Makes a reserved name available again, if the file couldn't be saved.
+     *
+     * @param file file returned by {@code FilePlacer#reserve(File, String, String)}
+     */
+    public void release(File file){
+        final CompletableFuture<FolderIndex> future = folders.get(getKey(file.getParentFile()));
+        final FolderIndex index = future == null? null : future.getNow(null);
+        if(index != null) index.release(file.getName());
+    }
+
+    /**
+     * Discards the names known of a folder, so it's listed again on the next reservation.
+     *
+     * @param folder directory to be forgotten
+     */
+    public void forget(File folder){
+        folders.remove(getKey(folder));
+    }
+
+    public void clear(){
+        folders.clear();
+    }
+
+    /**
+     * Lists each folder once, outside of the map locks, so a slow folder doesn't
+     * block the others; concurrent requests for the same folder wait for it.
+     */
+    private FolderIndex getIndex(File folder){
+        final String key = getKey(folder);
+        CompletableFuture<FolderIndex> future = folders.get(key);
+        if(future == null){
+            final CompletableFuture<FolderIndex> created = new CompletableFuture<>();
+            future = folders.putIfAbsent(key, created);
+            if(future == null){
+                future = created;
+                try{
+                    created.complete(new FolderIndex(folder));
+                }catch(RuntimeException ex){
+                    folders.remove(key, created);
+                    created.completeExceptionally(ex);
+                }
+            }
+        }
+        return future.join();
+    }
+
+    private static String getKey(File folder){
+        return folder.getAbsolutePath();
+    }
+
+    private static String normalize(String name){
+        return name.toLowerCase(Locale.ROOT); //never clashes on case-insensitive systems
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" FOLDER INDEX ">
+    private static class FolderIndex {
+
+        private final Set<String> names = new HashSet<>();
+        private final Map<String, Integer> next = new HashMap<>(); //first suffix worth trying per name
+
+        private FolderIndex(File folder){
+            final String[] listed = folder.list();
+            if(listed != null){
+                for (String name : listed) {
+                    names.add(normalize(name));
+                }
+            }
+        }
+
+        private synchronized String reserve(String filename, String extension){
+            final String name = filename+extension;
+            if(names.add(normalize(name))) return name;
+
+            final String key = normalize(name);
+            int n = next.getOrDefault(key, 1);
+            String candidate;
+            do{
+                candidate = new StringBuilder(filename)
+                        .append(" (").append(n++).append(")")
+                        .append(extension).toString();
+            }while(!names.add(normalize(candidate)));
+            next.put(key, n);
+            return candidate;
+        }
+
+        private synchronized void release(String name){
+            names.remove(normalize(name));
+        }
+    }
+    // </editor-fold>
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Answers repeated filters over a {@code FileIndex} without touching the disk,
+ * like "images over 5 MB modified this week under X".<br>
+ * When created, it precomputes a bitmap of entries per extension, with
+ * {@code FileUtils#IMAGES_EXT} as a group; the file ids sorted by size and all ids
+ * sorted by last modified time, so ranges are found by binary search; and the end
+ * of every subtree, which is a contiguous range of pre-order ids. Each filter of a
+ * selection is then a bitmap intersection.<br>
+ * Extensions are the text from the last {@literal '.'} (dot) of the name, of any
+ * length, matched case-insensitively. Once created, queries are thread-safe;
+ * selections are not.
+ *
+ * References:<br>
+ * https://en.wikipedia.org/wiki/Bitmap_index<br>
+ * https://en.wikipedia.org/wiki/Nested_set_model
+ *
+ * @see FileIndex
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FileQuery {
+
+    private final FileIndex index;
+    private final int size;
+    private final BitSet files = new BitSet();
+    private final BitSet images = new BitSet();
+    private final Map<String, BitSet> extensions = new HashMap<>();
+    private final int[] bySize; //file ids
+    private final long[] sortedSizes;
+    private final int[] byModified; //all ids
+    private final long[] sortedModified;
+    private final int[] ends; //subtree end, exclusive
+
+    public FileQuery(FileIndex index) {
+        this.index = index;
+        size = index.size();
+
+        //EXTENSIONS, COMPUTED ONCE PER SEGMENT
+        final String[] segmentExtensions = new String[index.getSegmentCount()];
+        for (int id = 0; id < size; id++) {
+            if(index.isDirectory(id)) continue;
+            files.set(id);
+            final int segment = index.getSegment(id);
+            String ext = segmentExtensions[segment];
+            if(ext == null){
+                ext = getExtension(index.getSegmentName(segment));
+                segmentExtensions[segment] = ext;
+            }
+            if(ext.isEmpty()) continue;
+            extensions.computeIfAbsent(ext, k -> new BitSet()).set(id);
+        }
+        for (String ext : FileUtils.IMAGES_EXT) {
+            final BitSet bits = extensions.get(ext);
+            if(bits != null) images.or(bits);
+        }
+
+        //SORTED COLUMNS
+        bySize = new int[files.cardinality()];
+        for (int id = files.nextSetBit(0), i = 0; id >= 0; id = files.nextSetBit(id+1)) {
+            bySize[i++] = id;
+        }
+        sortedSizes = sort(bySize, index::getSize);
+        byModified = new int[size];
+        for (int id = 0; id < size; id++) {
+            byModified[id] = id;
+        }
+        sortedModified = sort(byModified, index::getLastModified);
+
+        //SUBTREES
+        ends = new int[size];
+        for (int id = size-1; id >= 0; id--) {
+            if(ends[id] == 0) ends[id] = id+1;
+            final int parent = index.getParent(id);
+            if(parent != FileIndex.NO_PARENT && ends[parent] < ends[id]) ends[parent] = ends[id];
+        }
+    }
+
+    /**
+     * @return lowercase text from the last {@literal '.'} (dot), like {@code ".gz"};
+     *         or empty for names without one, or starting with it, like {@code ".gitignore"}
+     */
+    private static String getExtension(String name){
+        final int dot = name.lastIndexOf('.');
+        if(dot <= 0 || dot == name.length()-1) return "";
+        return name.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" SORT ">
+    private interface Column {
+        long get(int id);
+    }
+
+    /**
+     * Stable merge sort of ids by a column, without boxing.
+     *
+     * @return the sorted keys, parallel to the sorted ids
+     */
+    private static long[] sort(int[] ids, Column column){
+        final int n = ids.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = column.get(ids[i]);
+        }
+        int[] srcIds = ids, dstIds = new int[n];
+        long[] srcKeys = keys, dstKeys = new long[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2*width) {
+                final int mid = Math.min(lo+width, n), hi = Math.min(lo+2*width, n);
+                int i = lo, j = mid, k = lo;
+                while(i < mid && j < hi){
+                    if(srcKeys[j] < srcKeys[i]){
+                        dstKeys[k] = srcKeys[j];
+                        dstIds[k++] = srcIds[j++];
+                    }else{
+                        dstKeys[k] = srcKeys[i];
+                        dstIds[k++] = srcIds[i++];
+                    }
+                }
+                while(i < mid){
+                    dstKeys[k] = srcKeys[i];
+                    dstIds[k++] = srcIds[i++];
+                }
+                while(j < hi){
+                    dstKeys[k] = srcKeys[j];
+                    dstIds[k++] = srcIds[j++];
+                }
+            }
+            final int[] tmpIds = srcIds; srcIds = dstIds; dstIds = tmpIds;
+            final long[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+        }
+        if(srcIds != ids) System.arraycopy(srcIds, 0, ids, 0, n);
+        return srcKeys;
+    }
+
+    /**
+     * @return index of the first key not smaller than the value
+     */
+    private static int lowerBound(long[] keys, long value){
+        int lo = 0, hi = keys.length;
+        while(lo < hi){
+            final int mid = (lo+hi) >>> 1;
+            if(keys[mid] < value) lo = mid+1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static BitSet range(int[] ids, long[] keys, long min, long max){
+        final BitSet bits = new BitSet();
+        if(min > max) return bits;
+        final int end = max == Long.MAX_VALUE? keys.length : lowerBound(keys, max+1);
+        for (int i = lowerBound(keys, min); i < end; i++) {
+            bits.set(ids[i]);
+        }
+        return bits;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" LOOKUPS ">
+    /**
+     * Finds the id of a pathname inside the index, walking down from the root
+     * through the direct children of each directory.
+     *
+     * @param file file or directory inside the indexed tree
+     * @return the id; or {@code -1} if it's not in the index
+     */
+    public int find(File file){
+        final String root = index.getName(FileIndex.ROOT);
+        final String path = FileUtils.normalize(file.getPath());
+        if(!path.startsWith(root)) return -1;
+        if(path.length() > root.length() && !root.endsWith(File.separator) && path.charAt(root.length()) != File.separatorChar) return -1;
+        int id = FileIndex.ROOT;
+        int start = root.length();
+        while(start < path.length()){
+            if(path.charAt(start) == File.separatorChar){
+                start++;
+                continue;
+            }
+            int end = path.indexOf(File.separatorChar, start);
+            if(end == -1) end = path.length();
+            id = findChild(id, path, start, end);
+            if(id == -1) return -1;
+            start = end;
+        }
+        return id;
+    }
+
+    private int findChild(int parent, String path, int start, int end){
+        for (int child = parent+1; child < ends[parent]; child = ends[child]) { //skips whole subtrees
+            final String name = index.getName(child);
+            if(name.length() == end-start && path.startsWith(name, start)) return child;
+        }
+        return -1;
+    }
+
+    /**
+     * @param id entry id
+     * @return the id after the last descendant of the entry
+     */
+    public int getSubtreeEnd(int id){
+        return ends[id];
+    }
+
+    public FileIndex getIndex() {
+        return index;
+    }
+    // </editor-fold>
+
+    /**
+     * Starts a selection with all entries, but the root.
+     *
+     * @return the selection
+     */
+    public Selection select(){
+        return new Selection();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" SELECTION ">
+    /**
+     * Set of entries narrowed down by chained filters.
+     */
+    public class Selection {
+
+        private final BitSet bits = new BitSet(size);
+
+        private Selection() {
+            bits.set(FileIndex.ROOT+1, size);
+        }
+
+        public Selection files(){
+            bits.and(files);
+            return this;
+        }
+
+        public Selection directories(){
+            bits.andNot(files);
+            return this;
+        }
+
+        /**
+         * Keeps files with an extension in {@code FileUtils#IMAGES_EXT}.
+         */
+        public Selection images(){
+            bits.and(images);
+            return this;
+        }
+
+        /**
+         * Keeps files with any of the given extensions.
+         *
+         * @param exts extensions with the {@literal '.'} (dot), like {@code ".pdf"}
+         * @return this selection
+         */
+        public Selection extensions(String... exts){
+            final BitSet mask = new BitSet();
+            for (String ext : exts) {
+                final BitSet group = extensions.get(ext.toLowerCase(Locale.ROOT));
+                if(group != null) mask.or(group);
+            }
+            bits.and(mask);
+            return this;
+        }
+
+        /**
+         * Keeps files with a size in the range; directories are removed.
+         *
+         * @param min minimum size in bytes, inclusive
+         * @param max maximum size in bytes, inclusive
+         * @return this selection
+         */
+        public Selection size(long min, long max){
+            bits.and(range(bySize, sortedSizes, min, max));
+            return this;
+        }
+
+        public Selection sizeAtLeast(long min){
+            return size(min, Long.MAX_VALUE);
+        }
+
+        /**
+         * @param from minimum last modified time in milliseconds, inclusive
+         * @param to maximum last modified time in milliseconds, inclusive
+         * @return this selection
+         */
+        public Selection modified(long from, long to){
+            bits.and(range(byModified, sortedModified, from, to));
+            return this;
+        }
+
+        public Selection modifiedSince(long from){
+            return modified(from, Long.MAX_VALUE);
+        }
+
+        /**
+         * Keeps the descendants of a directory.
+         *
+         * @param id id of the directory
+         * @return this selection
+         */
+        public Selection under(int id){
+            if(id < 0){
+                bits.clear();
+            }else{
+                bits.clear(0, id+1);
+                bits.clear(ends[id], Math.max(ends[id], size));
+            }
+            return this;
+        }
+
+        public Selection under(File directory){
+            return under(find(directory));
+        }
+
+        public int count(){
+            return bits.cardinality();
+        }
+
+        public int[] toIds(){
+            return bits.stream().toArray();
+        }
+
+        public BitSet toBitSet(){
+            return (BitSet) bits.clone();
+        }
+
+        /**
+         * @return a new {@code CachedFile} for each selected entry, in pre-order
+         */
+        public List<CachedFile> toFiles(){
+            final List<CachedFile> selected = new ArrayList<>(bits.cardinality());
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id+1)) {
+                selected.add(index.getFile(id));
+            }
+            return selected;
+        }
+    }
+    // </editor-fold>
+
+}
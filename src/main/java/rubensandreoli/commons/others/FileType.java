@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.Arrays;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * File types recognized by their magic numbers, the first bytes of the content.<br>
+ * Detection walks a byte trie compiled once from all the known magic numbers,
+ * so a header is matched against every type in a single pass without decoding anything.
+ * Wildcard bytes, like the chunk size of {@code RIFF} containers, are written as {@literal ??}.
+ *
+ * References:<br>
+ * https://en.wikipedia.org/wiki/List_of_file_signatures<br>
+ * https://www.sparkhound.com/blog/detect-image-file-types-through-byte-arrays<br>
+ * https://developers.google.com/speed/webp/docs/riff_container
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public enum FileType {
+    JPEG(true, ".jpg", "FF D8 FF"),
+    PNG(true, ".png", "89 50 4E 47 0D 0A 1A 0A"),
+    GIF(true, ".gif", "47 49 46 38 37 61", "47 49 46 38 39 61"),
+    BMP(true, ".bmp", "42 4D"),
+    WEBP(true, ".webp", "52 49 46 46 ?? ?? ?? ?? 57 45 42 50"),
+    TIFF(true, ".tif", "49 49 2A 00", "4D 4D 00 2A"),
+    ICO(true, ".ico", "00 00 01 00"),
+    ZIP(false, ".zip", "50 4B 03 04", "50 4B 05 06", "50 4B 07 08"),
+    GZIP(false, ".gz", "1F 8B"),
+    BZIP2(false, ".bz2", "42 5A 68"),
+    RAR(false, ".rar", "52 61 72 21 1A 07"),
+    SEVEN_ZIP(false, ".7z", "37 7A BC AF 27 1C"),
+    PDF(false, ".pdf", "25 50 44 46"),
+    RTF(false, ".rtf", "7B 5C 72 74 66"),
+    OLE(false, ".doc", "D0 CF 11 E0 A1 B1 1A E1"),
+    WAV(false, ".wav", "52 49 46 46 ?? ?? ?? ?? 57 41 56 45"),
+    AVI(false, ".avi", "52 49 46 46 ?? ?? ?? ?? 41 56 49 20"),
+    UNKNOWN(false, "");
+
+    private final boolean image;
+    private final String extension;
+    private final String[] magics;
+
+    private static final Node ROOT = new Node();
+    public static final int HEADER_BYTES;
+    static {
+        int max = 0;
+        for (FileType type : values()) {
+            for (String magic : type.magics) {
+                max = Math.max(max, ROOT.add(magic.split(" "), type));
+            }
+        }
+        HEADER_BYTES = max;
+    }
+
+    private FileType(boolean image, String extension, String...magics){
+        this.image = image;
+        this.extension = extension;
+        this.magics = magics;
+    }
+
+    /**
+     * Detects the type of the content that starts with the given bytes.
+     *
+     * @param header first bytes of the content; {@code FileType#HEADER_BYTES} are enough to identify any type
+     * @return matching type; or {@code FileType#UNKNOWN} if none matched
+     */
+    public static FileType of(byte[] header){
+        if(header == null) return UNKNOWN;
+        return of(header, header.length);
+    }
+
+    public static FileType of(byte[] header, int length){
+        final FileType type = ROOT.match(header, 0, length);
+        return type == null? UNKNOWN : type;
+    }
+
+    /**
+     * Detects the type of the file by reading its first {@code FileType#HEADER_BYTES} bytes.
+     *
+     * @param file file to be read
+     * @return matching type; or {@code FileType#UNKNOWN} if none matched or the file couldn't be read
+     */
+    public static FileType of(File file){
+        return of(FileUtils.readFirstBytes(file, HEADER_BYTES));
+    }
+
+    /**
+     * Detects the type of the file using its cached signature. The file is read
+     * again only if the signature is too short to tell the type apart,
+     * as it happens with containers like {@code RIFF}.
+     *
+     * @param file file to be inspected
+     * @return matching type; or {@code FileType#UNKNOWN} if none matched or the file couldn't be read
+     */
+    public static FileType of(CachedFile file){
+        final byte[] signature = file.getRawSignature();
+        if(signature == null) return UNKNOWN;
+        if(signature.length < CachedFile.SIGNATURE_BYTES || ROOT.isConclusive(signature, 0, signature.length)){
+            return of(signature); //whole file or unambiguous
+        }
+        return of((File) file);
+    }
+
+    public boolean isImage(){
+        return image;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" TRIE ">
+    private static class Node {
+
+        private static final int WILDCARD = -1;
+
+        private int[] keys = new int[0];
+        private Node[] children = new Node[0];
+        private FileType type;
+
+        private int add(String[] bytes, FileType type){
+            Node node = this;
+            for (String b : bytes) {
+                node = node.child("??".equals(b)? WILDCARD : Integer.parseInt(b, 16), true);
+            }
+            node.type = type;
+            return bytes.length;
+        }
+
+        private Node child(int key, boolean create){
+            for (int i = 0; i < keys.length; i++) {
+                if(keys[i] == key) return children[i];
+            }
+            if(!create) return null;
+            final int n = keys.length;
+            keys = Arrays.copyOf(keys, n+1);
+            children = Arrays.copyOf(children, n+1);
+            keys[n] = key;
+            children[n] = new Node();
+            return children[n];
+        }
+
+        /**
+         * Returns the type of the longest magic number matched.
+         */
+        private FileType match(byte[] bytes, int pos, int length){
+            if(pos < length){
+                final int b = bytes[pos] & 0xFF;
+                for (int i = 0; i < keys.length; i++) {
+                    if(keys[i] == b || keys[i] == WILDCARD){
+                        final FileType found = children[i].match(bytes, pos+1, length);
+                        if(found != null) return found;
+                    }
+                }
+            }
+            return type;
+        }
+
+        /**
+         * Tests if a longer header could lead to a different result.
+         */
+        private boolean isConclusive(byte[] bytes, int pos, int length){
+            if(pos == length) return keys.length == 0;
+            final int b = bytes[pos] & 0xFF;
+            for (int i = 0; i < keys.length; i++) {
+                if(keys[i] == b || keys[i] == WILDCARD){
+                    if(!children[i].isConclusive(bytes, pos+1, length)) return false;
+                }
+            }
+            return true;
+        }
+    }
+    // </editor-fold>
+
+}
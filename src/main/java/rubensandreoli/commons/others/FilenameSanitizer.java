@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Removes invalid characters from filenames using a lookup table with one bit
+ * per {@code char}, precomputed once per rule set; so each character costs a
+ * single array access, and names that are already valid are returned without
+ * being copied.<br>
+ * Optionally, names are truncated to a maximum amount of UTF-8 bytes, the unit
+ * most file systems limit names by, without splitting surrogate pairs. Windows
+ * rules also remove trailing dots and spaces, and append {@literal '_'} to reserved
+ * device names like {@code CON} or {@code LPT1}.<br>
+ * Instances are immutable and thread-safe.
+ *
+ * References:<br>
+ * https://docs.microsoft.com/en-us/windows/win32/fileio/naming-a-file<br>
+ * https://pubs.opengroup.org/onlinepubs/9699919799/basedefs/V1_chap03.html#tag_03_282<br>
+ * https://datatracker.ietf.org/doc/html/rfc3986#section-2.2
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class FilenameSanitizer {
+
+    public static final int NO_LIMIT = 0;
+    public static final int DEFAULT_MAX_BYTES = 255;
+
+    private static final String WINDOWS_INVALID_CHARS = "/\\:*?\"<>|";
+    private static final String URL_INVALID_CHARS = WINDOWS_INVALID_CHARS + "#%&{}[]^~`'@$!+=;, ";
+    private static final Set<String> WINDOWS_RESERVED_NAMES = Set.of(
+            "CON", "PRN", "AUX", "NUL",
+            "COM1", "COM2", "COM3", "COM4", "COM5", "COM6", "COM7", "COM8", "COM9",
+            "LPT1", "LPT2", "LPT3", "LPT4", "LPT5", "LPT6", "LPT7", "LPT8", "LPT9");
+
+    /** Characters and names invalid on Windows, and control characters. */
+    public static final FilenameSanitizer WINDOWS = new FilenameSanitizer(WINDOWS_INVALID_CHARS, true, true, DEFAULT_MAX_BYTES);
+    /** Only {@literal '/'} (slash) and the null character. */
+    public static final FilenameSanitizer POSIX = new FilenameSanitizer("/\0", false, false, DEFAULT_MAX_BYTES);
+    /** Windows rules, plus characters reserved or unsafe in URLs, including spaces. */
+    public static final FilenameSanitizer URL = new FilenameSanitizer(URL_INVALID_CHARS, true, true, DEFAULT_MAX_BYTES);
+
+    private final long[] invalid = new long[(Character.MAX_VALUE+1) / Long.SIZE];
+    private final boolean reserved;
+    private final int maxBytes;
+
+    /**
+     * @param invalidChars characters to be removed
+     * @param controls {@code true} to also remove control characters
+     * @param reserved {@code true} to apply Windows rules for trailing dots,
+     *                 spaces and reserved names
+     * @param maxBytes maximum length of names in UTF-8 bytes; or {@code FilenameSanitizer#NO_LIMIT}
+     */
+    public FilenameSanitizer(String invalidChars, boolean controls, boolean reserved, int maxBytes) {
+        if(maxBytes < 0) throw new IllegalArgumentException("parameter maxBytes "+maxBytes+" < 0");
+        for (int i = 0; i < invalidChars.length(); i++) {
+            set(invalidChars.charAt(i));
+        }
+        if(controls){
+            for (char c = 0; c < ' '; c++) set(c);
+            set('\u007F');
+        }
+        this.reserved = reserved;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates a sanitizer that removes every character but the given ones.
+     *
+     * @param validChars characters to be kept
+     * @param maxBytes maximum length of names in UTF-8 bytes; or {@code FilenameSanitizer#NO_LIMIT}
+     * @return the sanitizer
+     */
+    public static FilenameSanitizer allowing(String validChars, int maxBytes){
+        final FilenameSanitizer sanitizer = new FilenameSanitizer("", false, false, maxBytes);
+        final long[] invalid = sanitizer.invalid;
+        for (int i = 0; i < invalid.length; i++) {
+            invalid[i] = -1L;
+        }
+        for (int i = 0; i < validChars.length(); i++) {
+            final char c = validChars.charAt(i);
+            invalid[c >>> 6] &= ~(1L << c);
+        }
+        return sanitizer;
+    }
+
+    private void set(char c){
+        invalid[c >>> 6] |= 1L << c;
+    }
+
+    public boolean isValid(char c){
+        return (invalid[c >>> 6] & (1L << c)) == 0;
+    }
+
+    /**
+     * Removes the invalid characters from a name and applies the length limit.
+     *
+     * @param name name to be sanitized, must not be {@code null}
+     * @return the sanitized name; or the same instance if it was already valid
+     */
+    public String sanitize(String name){
+        final int length = name.length();
+        int i = 0;
+        while(i < length && isValid(name.charAt(i))) i++;
+        if(i == length && !reserved && maxBytes == NO_LIMIT) return name;
+        final StringBuilder sb = new StringBuilder(length);
+        sanitize(name, sb);
+        return name.contentEquals(sb)? name : sb.toString();
+    }
+
+    /**
+     * Sanitizes many names reusing a single buffer.
+     *
+     * @see FilenameSanitizer#sanitize(String)
+     * @param names names to be sanitized
+     * @return the sanitized names, in the same order
+     */
+    public List<String> sanitize(Collection<String> names){
+        final List<String> sanitized = new ArrayList<>(names.size());
+        final StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.setLength(0);
+            sanitize(name, sb);
+            sanitized.add(name.contentEquals(sb)? name : sb.toString());
+        }
+        return sanitized;
+    }
+
+    /**
+     * Appends the sanitized name to a buffer.
+     *
+     * @param name name to be sanitized
+     * @param sb buffer where the sanitized name is appended
+     */
+    public void sanitize(CharSequence name, StringBuilder sb){
+        final int start = sb.length();
+        final int length = name.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = name.charAt(i);
+            if(!isValid(c)) continue;
+            if(maxBytes != NO_LIMIT){
+                final int size = getUTF8Size(name, i);
+                if(bytes + size > maxBytes) break;
+                bytes += size;
+                if(size == 4){ //surrogate pair, both valid
+                    sb.append(c).append(name.charAt(++i));
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        if(reserved) applyReserved(sb, start);
+    }
+
+    private int getUTF8Size(CharSequence name, int i){
+        final char c = name.charAt(i);
+        if(c < 0x80) return 1;
+        if(c < 0x800) return 2;
+        if(Character.isHighSurrogate(c) && i+1 < name.length()
+                && Character.isLowSurrogate(name.charAt(i+1)) && isValid(name.charAt(i+1))) return 4;
+        return 3; //unpaired surrogates are encoded as '?' by Java, but count the worst case
+    }
+
+    private static void applyReserved(StringBuilder sb, int start){
+        int end = sb.length();
+        while(end > start && (sb.charAt(end-1) == '.' || sb.charAt(end-1) == ' ')) end--;
+        sb.setLength(end);
+        int base = sb.indexOf(".", start);
+        if(base == -1) base = end;
+        if(base - start >= 3 && base - start <= 4){
+            final String stem = sb.substring(start, base).toUpperCase(Locale.ROOT);
+            if(WINDOWS_RESERVED_NAMES.contains(stem)) sb.insert(base, '_');
+        }
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+}
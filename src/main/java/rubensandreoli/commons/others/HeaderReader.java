@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the first bytes of many files keeping several reads outstanding at
+ * once, which lets SSDs and RAID arrays serve them in parallel instead of one
+ * by one.<br>
+ * Reads go through {@code AsynchronousFileChannel} into slots of a single direct
+ * slab buffer, one slot per outstanding read, so no buffer is allocated per file
+ * besides the returned header.
+ *
+ * References:<br>
+ * https://docs.oracle.com/javase/tutorial/essential/io/file.html#channelio<br>
+ * https://openjdk.java.net/projects/nio/presentations/TS-4222.pdf
+ *
+ * @see CachedFile#getRawSignature()
+ * @author Rubens A. Andreoli Jr.
+ */
+public class HeaderReader {
+
+    public static final int DEFAULT_OUTSTANDING = 64;
+
+    private final int headerBytes;
+    private final int outstanding;
+
+    public HeaderReader() {
+        this(CachedFile.SIGNATURE_BYTES, DEFAULT_OUTSTANDING);
+    }
+
+    /**
+     * @param headerBytes amount of bytes read from the start of each file, must be positive
+     * @param outstanding maximum number of reads in flight, must be positive
+     */
+    public HeaderReader(int headerBytes, int outstanding) {
+        if(headerBytes < 1) throw new IllegalArgumentException("parameter headerBytes "+headerBytes+" < 1");
+        if(outstanding < 1) throw new IllegalArgumentException("parameter outstanding "+outstanding+" < 1");
+        this.headerBytes = headerBytes;
+        this.outstanding = outstanding;
+    }
+
+    /**
+     * Reads and caches the signature of all files, so later calls to
+     * {@code CachedFile#getRawSignature()} don't access the disk.
+     * Files that can't be read keep no signature.
+     *
+     * @param files files to be read
+     * @return amount of files whose signature was read
+     */
+    public int readSignatures(Collection<? extends CachedFile> files){
+        final int[] count = new int[1];
+        read(files, (f, header) -> {
+            if(header != null){
+                ((CachedFile) f).setSignature(header.length > CachedFile.SIGNATURE_BYTES? Arrays.copyOf(header, CachedFile.SIGNATURE_BYTES) : header);
+                synchronized(count){
+                    count[0]++;
+                }
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Reads the header of all files, blocking until all of them are done.
+     * The consumer is called on the I/O threads as each read completes, with a
+     * header shorter than requested if the file is smaller; or {@code null} if
+     * the file couldn't be read.
+     *
+     * @param files files to be read
+     * @param consumer receives each file with its header
+     */
+    public void read(Collection<? extends File> files, BiConsumer<File, byte[]> consumer){
+        final ByteBuffer slab = ByteBuffer.allocateDirect(headerBytes * outstanding);
+        final BlockingQueue<ByteBuffer> slots = new LinkedBlockingQueue<>(outstanding);
+        for (int i = 0; i < outstanding; i++) {
+            slab.limit((i+1)*headerBytes).position(i*headerBytes);
+            slots.add(slab.slice());
+        }
+        final CountDownLatch done = new CountDownLatch(files.size());
+        final ExecutorService pool = IOExecutor.create(Math.min(outstanding, IOExecutor.DEFAULT_THREADS*4), "header");
+        try{
+            for (File file : files) {
+                final ByteBuffer slot = slots.take(); //waits for a read to finish
+                slot.clear();
+                try{
+                    final AsynchronousFileChannel channel = AsynchronousFileChannel.open(file.toPath(), Set.of(StandardOpenOption.READ), pool);
+                    channel.read(slot, 0, channel, new Handler(file, slot, slots, done, consumer));
+                }catch(IOException | InvalidPathException | SecurityException ex){
+                    deliver(file, null, slot, slots, done, consumer);
+                }
+            }
+            done.await();
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    private static void deliver(File file, byte[] header, ByteBuffer slot, BlockingQueue<ByteBuffer> slots, CountDownLatch done, BiConsumer<File, byte[]> consumer){
+        try{
+            consumer.accept(file, header);
+        }finally{
+            slots.add(slot);
+            done.countDown();
+        }
+    }
+
+    private static class Handler implements CompletionHandler<Integer, AsynchronousFileChannel> {
+
+        private final File file;
+        private final ByteBuffer slot;
+        private final BlockingQueue<ByteBuffer> slots;
+        private final CountDownLatch done;
+        private final BiConsumer<File, byte[]> consumer;
+
+        private Handler(File file, ByteBuffer slot, BlockingQueue<ByteBuffer> slots, CountDownLatch done, BiConsumer<File, byte[]> consumer) {
+            this.file = file;
+            this.slot = slot;
+            this.slots = slots;
+            this.done = done;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void completed(Integer read, AsynchronousFileChannel channel) {
+            if(read != -1 && slot.hasRemaining()){ //short read, not end of file
+                channel.read(slot, slot.position(), channel, this);
+                return;
+            }
+            close(channel);
+            slot.flip();
+            final byte[] header = new byte[slot.remaining()];
+            slot.get(header);
+            deliver(file, header, slot, slots, done, consumer);
+        }
+
+        @Override
+        public void failed(Throwable ex, AsynchronousFileChannel channel) {
+            close(channel);
+            deliver(file, null, slot, slots, done, consumer);
+        }
+
+        private static void close(AsynchronousFileChannel channel){
+            try {
+                channel.close();
+            } catch (IOException ex) {}
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pools of daemon threads meant for blocking disk operations.<br>
+ * The shared pool is created on first use and is never shut down, its threads
+ * die after being idle for a while so it won't hold the application open.
+ *
+ * References:<br>
+ * https://stackoverflow.com/questions/1014528/asynchronous-io-in-java<br>
+ * https://stackoverflow.com/questions/13883293/turning-an-executorservice-to-daemon-in-java
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public final class IOExecutor {
+
+    public static final int DEFAULT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE = 30; //seconds
+
+    private static ExecutorService shared;
+
+    private IOExecutor(){}
+
+    /**
+     * Returns the pool shared by the library for read-ahead and bulk operations.
+     *
+     * @return shared bounded executor with {@code IOExecutor#DEFAULT_THREADS} threads
+     */
+    public static synchronized ExecutorService shared(){
+        if(shared == null) shared = create(DEFAULT_THREADS, "io-shared");
+        return shared;
+    }
+
+    /**
+     * Creates a new pool of daemon threads. Tasks submitted while all threads
+     * are busy are queued; the caller is responsible for shutting it down.
+     *
+     * @param threads maximum number of concurrent tasks, must be positive
+     * @param name prefix of the threads name
+     * @return new bounded executor
+     * @throws IllegalArgumentException if {@code threads} is smaller than {@literal 1}
+     */
+    public static ExecutorService create(int threads, String name){
+        if(threads < 1) throw new IllegalArgumentException("parameter threads "+threads+" < 1");
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory factory = r -> {
+            final Thread t = new Thread(r, name+"-"+count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import rubensandreoli.commons.utils.ImageUtils;
+
+/**
+ * Keeps classpath images and icons, decoded and scaled, so that repeated lookups
+ * don't read the resource again. Entries are keyed by resource and size, and held
+ * by soft references, so they are only evicted when the heap runs low.<br>
+ * Cached instances are shared: images must not be drawn on, and icons must
+ * not have their image replaced.
+ *
+ * @see rubensandreoli.commons.utils.FileUtils#loadIcon(String, int)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class IconCache {
+
+    private static final int ORIGINAL_SIZE = 0;
+
+    public static final IconCache icons = new IconCache(); //eager initialization
+
+    private final ConcurrentMap<String, SoftReference<BufferedImage>> images = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SoftReference<ImageIcon>> scaled = new ConcurrentHashMap<>();
+
+    private IconCache(){}
+
+    /**
+     * Returns a classpath image, decoding it only on the first call.
+     *
+     * @param url resource name, relative to the classpath root
+     * @return shared image; or {@code null} if the resource doesn't exist or can't be decoded
+     */
+    public BufferedImage getImage(String url){
+        final SoftReference<BufferedImage> ref = images.get(url);
+        BufferedImage image = ref == null? null : ref.get();
+        if(image == null){
+            image = read(url);
+            if(image != null) images.put(url, new SoftReference<>(image));
+        }
+        return image;
+    }
+
+    public ImageIcon getIcon(String url){
+        return getIcon(url, ORIGINAL_SIZE);
+    }
+
+    /**
+     * Returns a classpath icon scaled to a square, decoding and scaling it only
+     * on the first call for each size.
+     *
+     * @param url resource name, relative to the classpath root
+     * @param size size of the icon sides; or {@literal 0} to keep the original size
+     * @return shared icon; or {@code null} if the resource doesn't exist or can't be decoded
+     */
+    public ImageIcon getIcon(String url, int size){
+        if(size < 0) throw new IllegalArgumentException("parameter size "+size+" < 0");
+        final String key = url+"@"+size;
+        final SoftReference<ImageIcon> ref = scaled.get(key);
+        ImageIcon icon = ref == null? null : ref.get();
+        if(icon == null){
+            final BufferedImage image = getImage(url);
+            if(image == null) return null;
+            icon = new ImageIcon(size == ORIGINAL_SIZE? image : ImageUtils.scale(image, size, size));
+            scaled.put(key, new SoftReference<>(icon));
+        }
+        return icon;
+    }
+
+    /**
+     * Decodes and scales a set of icons in the background, usually called at
+     * startup so the first paint of toolbars and tables doesn't touch the classpath.
+     *
+     * @param urls resource names, relative to the classpath root
+     * @param sizes sizes to be prepared for every icon; or none for the original size only
+     * @return future completed when all icons are cached
+     */
+    public CompletableFuture<Void> preload(Collection<String> urls, int...sizes){
+        return CompletableFuture.runAsync(() -> {
+            for (String url : urls) {
+                if(sizes.length == 0) getIcon(url);
+                for (int size : sizes) {
+                    getIcon(url, size);
+                }
+            }
+        }, IOExecutor.shared());
+    }
+
+    public void clear(){
+        images.clear();
+        scaled.clear();
+    }
+
+    private static BufferedImage read(String url){
+        final URL resource = IconCache.class.getClassLoader().getResource(url.startsWith("/")? url.substring(1) : url);
+        if(resource == null) return null;
+        try {
+            return ImageIO.read(resource);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+/**
+ * Information read from the header of an image, without decoding its pixels.
+ * 
+ * @see rubensandreoli.commons.utils.ImageUtils#probe(java.io.File)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ImageInfo {
+    
+    public static final int UNKNOWN_FRAMES = -1;
+    
+    private final int width, height;
+    private final String format;
+    private final int frames;
+
+    public ImageInfo(int width, int height, String format, int frames) {
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.frames = frames;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Estimates the heap needed to hold the decoded image in memory.
+     * 
+     * @return amount of bytes considering 4 bytes per pixel
+     */
+    public long getDecodedSize(){
+        return (long) width * height * 4;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the number of images in the file, more than one for animations.
+     * 
+     * @return number of frames; or {@code ImageInfo#UNKNOWN_FRAMES} if they weren't counted
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    @Override
+    public String toString() {
+        return format+" "+width+"x"+height+(frames > 1? " ("+frames+" frames)" : "");
+    }
+    
+}
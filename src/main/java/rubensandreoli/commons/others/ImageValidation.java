@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+
+/**
+ * Outcome of validating a single image file.
+ * 
+ * @see rubensandreoli.commons.utils.ImageUtils#validate(java.util.Collection, int, long, boolean, java.util.function.Consumer)
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ImageValidation {
+    
+    private final File file;
+    private final ImageInfo info;
+    private final String reason;
+
+    private ImageValidation(File file, ImageInfo info, String reason) {
+        this.file = file;
+        this.info = info;
+        this.reason = reason;
+    }
+    
+    public static ImageValidation valid(File file, ImageInfo info){
+        return new ImageValidation(file, info, null);
+    }
+    
+    public static ImageValidation invalid(File file, ImageInfo info, String reason){
+        return new ImageValidation(file, info, reason);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the header information, if it could be read.
+     * 
+     * @return header information; or {@code null} if the header was not readable
+     */
+    public ImageInfo getInfo() {
+        return info;
+    }
+
+    public boolean isValid(){
+        return reason == null;
+    }
+
+    /**
+     * Returns why the file failed validation.
+     * 
+     * @return failure reason; or {@code null} if the image is valid
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return file+(reason == null? " valid" : " invalid: "+reason);
+    }
+    
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.awt.FontMetrics;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Abbreviates pathnames to fit a maximum amount of characters, or of pixels,
+ * replacing their middle with an ellipsis; exactly like {@code FileUtils#maskPathname(String, int)}.<br>
+ * The separator offsets and the root of each pathname are found once, without
+ * regular expressions, and kept in an LRU memo together with the last abbreviation
+ * of each mode; so rendering the same pathname again at the same size, like table
+ * rows being repainted, only costs a lookup.<br>
+ * Pathnames containing line terminators or surrogate pairs, which the original
+ * regular expressions count differently, are abbreviated by them.
+ *
+ * References:<br>
+ * https://docs.oracle.com/javase/8/docs/api/java/util/regex/Pattern.html#lt<br>
+ * https://stackoverflow.com/questions/11469483/java-lru-cache-using-linkedhashmap
+ *
+ * @see FileUtils#MASKED_FILENAME_MIN_LENGTH
+ * @author Rubens A. Andreoli Jr.
+ */
+public class PathAbbreviator {
+
+    public static final int DEFAULT_CAPACITY = 4096; //pathnames
+    private static final String ELLIPSIS = "...";
+    private static final char SEPARATOR = File.separatorChar;
+
+    public static final PathAbbreviator abbreviations = new PathAbbreviator(); //eager initialization
+
+    private final Map<String, Segments> memo;
+
+    public PathAbbreviator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of pathnames remembered
+     */
+    public PathAbbreviator(int capacity) {
+        memo = new LinkedHashMap<>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Segments> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Abbreviates a pathname to a maximum amount of characters, remembering the result.
+     *
+     * @see PathAbbreviator#mask(String, int)
+     * @param pathname pathname to be abbreviated
+     * @param maxLength maximum amount of characters
+     * @return abbreviated pathname
+     */
+    public String abbreviate(String pathname, int maxLength){
+        final Segments segments = getSegments(pathname);
+        synchronized(segments){
+            if(segments.length != maxLength || segments.byLength == null){
+                segments.byLength = mask(segments, maxLength);
+                segments.length = maxLength;
+            }
+            return segments.byLength;
+        }
+    }
+
+    /**
+     * Abbreviates a pathname to the longest abbreviation that fits in the given
+     * width when drawn with the given font metrics, remembering the result.
+     * If not even the shortest abbreviation fits, the shortest is returned.
+     *
+     * @param pathname pathname to be abbreviated
+     * @param metrics metrics of the font used to draw the pathname
+     * @param width available width in pixels
+     * @return abbreviated pathname
+     */
+    public String abbreviate(String pathname, FontMetrics metrics, int width){
+        final Segments segments = getSegments(pathname);
+        synchronized(segments){
+            if(segments.metrics != metrics || segments.width != width || segments.byWidth == null){
+                segments.byWidth = fit(segments, metrics, width);
+                segments.metrics = metrics;
+                segments.width = width;
+            }
+            return segments.byWidth;
+        }
+    }
+
+    private static String fit(Segments segments, FontMetrics metrics, int width){
+        final String pathname = segments.pathname;
+        if(metrics.stringWidth(pathname) <= width) return pathname;
+        int low = FileUtils.MASKED_FILENAME_MIN_LENGTH, high = pathname.length()-1;
+        String fit = mask(segments, low);
+        while(low <= high){
+            final int mid = (low+high) >>> 1;
+            final String masked = mask(segments, mid);
+            if(metrics.stringWidth(masked) <= width){
+                fit = masked;
+                low = mid+1;
+            }else{
+                high = mid-1;
+            }
+        }
+        return fit;
+    }
+
+    private Segments getSegments(String pathname){
+        synchronized(memo){
+            Segments segments = memo.get(pathname);
+            if(segments == null){
+                segments = new Segments(FileUtils.normalize(pathname));
+                memo.put(pathname, segments);
+            }
+            return segments;
+        }
+    }
+
+    public void clear(){
+        synchronized(memo){
+            memo.clear();
+        }
+    }
+
+    /**
+     * Abbreviates a pathname to a maximum amount of characters, without remembering
+     * anything. The last characters of the normalized pathname are kept; then the
+     * first folder name, or the last three characters, is replaced by an ellipsis;
+     * and finally the root is put back in front of it, if there is room.
+     * Pathnames that already fit, or lengths smaller than {@code FileUtils#MASKED_FILENAME_MIN_LENGTH},
+     * return the normalized pathname.
+     *
+     * @param pathname pathname to be abbreviated
+     * @param maxLength maximum amount of characters
+     * @return abbreviated pathname
+     */
+    public static String mask(String pathname, int maxLength){
+        if(pathname.isEmpty()) return "";
+        return mask(new Segments(FileUtils.normalize(pathname)), maxLength);
+    }
+
+    private static String mask(Segments segments, int maxLength){
+        final String pathname = segments.pathname;
+        final int length = pathname.length();
+        if((maxLength < FileUtils.MASKED_FILENAME_MIN_LENGTH) || (length <= maxLength)) return pathname;
+        if(!segments.plain) return maskWithRegex(pathname, maxLength);
+
+        final int[] separators = segments.separators;
+        final int offset = length - maxLength;
+
+        //FIRST FOLDER NAME, OR LAST 3 CHARACTERS
+        int at = offset;
+        if(separators.length > 0) at = Math.max(offset, separators[separators.length-1]-2);
+        for (int i = nextSeparator(separators, offset+3); i < separators.length && separators[i]-3 < at; i++) {
+            if(i == 0 || separators[i-1] < separators[i]-3){
+                at = separators[i]-3;
+                break;
+            }
+        }
+        final StringBuilder sb = new StringBuilder(maxLength)
+                .append(pathname, offset, at)
+                .append(ELLIPSIS)
+                .append(pathname, at+3, length);
+
+        //ROOT
+        final int root = segments.root;
+        if(root == -1) return sb.toString();
+        final int ellipsis = sb.lastIndexOf(ELLIPSIS);
+        if(ellipsis >= root){
+            sb.replace(0, ellipsis+3, ELLIPSIS).insert(0, pathname, 0, root);
+        }else{
+            int i = nextSeparator(separators, offset+root+3);
+            while(i < separators.length && separators[i] >= at && separators[i] < at+3) i++; //replaced by the ellipsis
+            if(i < separators.length){
+                sb.replace(0, separators[i]-offset, ELLIPSIS).insert(0, pathname, 0, root);
+            }
+        }
+        final int index = sb.indexOf(ELLIPSIS+SEPARATOR);
+        if(index < root) return sb.substring(Math.max(0, index));
+        return sb.toString();
+    }
+
+    private static int nextSeparator(int[] separators, int from){
+        final int i = Arrays.binarySearch(separators, from);
+        return i < 0? -(i+1) : i;
+    }
+
+    private static String maskWithRegex(String pathname, int maxLength){
+        final String separator = FileUtils.separator;
+        String formated = pathname.substring(pathname.length()-maxLength, pathname.length());
+        formated = formated.replaceFirst("([^\\"+separator
+                +"]{3}(?=\\"+separator
+                +"))|(.{3})(?=[^\\"+separator
+                +"]*$)", "..."); //or only (.{3,}?(?=\/))|(.{3})
+
+        String root = FileUtils.getRoot(pathname);
+        if(root != null){
+            formated = formated.replaceFirst(".{"+root.length()
+                    +",}(\\.{3})|(^.{"+(root.length()+3)
+                    +",}?(?=\\"+separator+"))", Matcher.quoteReplacement(root)+"..."); //if separator is "\" Matcher.quoteReplacement(root)
+            int index = formated.indexOf("..."+separator);
+            if(index < root.length()) formated = formated.substring(Math.max(0, index));
+        }
+        return formated;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" SEGMENTS ">
+    private static class Segments {
+        private final String pathname; //normalized
+        private final int[] separators;
+        private final int root; //length; or -1 if none
+        private final boolean plain; //no line terminators or surrogates
+
+        private int length;
+        private String byLength;
+        private FontMetrics metrics;
+        private int width;
+        private String byWidth;
+
+        private Segments(String pathname) {
+            this.pathname = pathname;
+            int count = 0;
+            boolean plain = true;
+            for (int i = 0; i < pathname.length(); i++) {
+                final char c = pathname.charAt(i);
+                if(c == SEPARATOR) count++;
+                else if(c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029' || Character.isSurrogate(c)) plain = false;
+            }
+            this.plain = plain;
+            separators = new int[count];
+            for (int i = 0, j = 0; j < count; i++) {
+                if(pathname.charAt(i) == SEPARATOR) separators[j++] = i;
+            }
+            root = findRoot(pathname, separators);
+        }
+
+        /**
+         * Same as {@code FileUtils#getRoot(String)}: nodes are appended while they
+         * start with a separator or with "http".
+         */
+        private static int findRoot(String pathname, int[] separators){
+            int root = -1, start = 0;
+            for (int i = 0; i < separators.length; i++) {
+                int end = separators[i]+1;
+                while(i+1 < separators.length && separators[i+1] == end){ //run of separators
+                    end++;
+                    i++;
+                }
+                root = end;
+                if(!pathname.startsWith("http", start) && pathname.charAt(start) != SEPARATOR) break;
+                start = end;
+            }
+            return root;
+        }
+    }
+    // </editor-fold>
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterates over files with their content already read, reading the next ones
+ * in the background while the current one is processed, so the CPU and the disk
+ * work at the same time.<br>
+ * At most {@code depth} files are read ahead, and only while the bytes held,
+ * including the file being processed, fit in the budget; a single file bigger
+ * than the budget is still read, alone. When the iterator moves on, the content
+ * of the previous file is freed, so don't keep references to it.<br>
+ * This iterator is meant to be used by a single thread.
+ *
+ * @see CachedFile#getContent()
+ * @author Rubens A. Andreoli Jr.
+ */
+public class PrefetchIterator implements Iterator<CachedFile>, AutoCloseable {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final long DEFAULT_BUDGET = 64L * 1024 * 1024; //bytes
+
+    private final List<CachedFile> files;
+    private final long[] sizes; //as accounted when scheduled
+    private final int depth;
+    private final long budget;
+    private final Executor executor;
+    private final Deque<CompletableFuture<CachedFile>> pending = new ArrayDeque<>();
+    private int returned, scheduled;
+    private long held;
+    private CachedFile current;
+
+    public PrefetchIterator(Collection<? extends File> files) {
+        this(files, DEFAULT_DEPTH, DEFAULT_BUDGET, IOExecutor.shared());
+    }
+
+    /**
+     * @param files files to be read, like the output of {@code FileUtils#scanChildren(File, int)}
+     * @param depth maximum number of files read ahead, must be positive
+     * @param budget maximum amount of bytes held by read files
+     * @param executor executor where files are read
+     */
+    public PrefetchIterator(Collection<? extends File> files, int depth, long budget, Executor executor) {
+        if(depth < 1) throw new IllegalArgumentException("parameter depth "+depth+" < 1");
+        this.files = new ArrayList<>(files.size());
+        sizes = new long[files.size()];
+        for (File file : files) {
+            this.files.add(file instanceof CachedFile? (CachedFile) file : new CachedFile(file));
+        }
+        this.depth = depth;
+        this.budget = budget;
+        this.executor = executor;
+        schedule();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return returned < files.size();
+    }
+
+    /**
+     * Frees the content of the previous file, and returns the next one with its
+     * content read, waiting for it if necessary.
+     *
+     * @return next file; its content is {@code null} if it couldn't be read
+     */
+    @Override
+    public CachedFile next() {
+        if(!hasNext()) throw new NoSuchElementException();
+        release();
+        if(pending.isEmpty()) schedule(); //nothing was ahead, read it anyway
+        current = pending.poll().join();
+        returned++;
+        schedule();
+        return current;
+    }
+
+    private void schedule(){
+        while(pending.size() < depth && scheduled < files.size()){
+            final CachedFile file = files.get(scheduled);
+            final long size = file.length();
+            if(held > 0 && held + size > budget) break;
+            held += size;
+            sizes[scheduled] = size;
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                file.getContent();
+                return file;
+            }, executor));
+            scheduled++;
+        }
+    }
+
+    private void release(){
+        if(current != null){
+            held -= sizes[returned-1];
+            current.freeContent();
+            current = null;
+        }
+    }
+
+    /**
+     * Frees the content of the current file and of the files read ahead.
+     */
+    @Override
+    public void close() {
+        release();
+        for (CompletableFuture<CachedFile> future : pending) {
+            future.thenAccept(CachedFile::freeContent);
+        }
+        pending.clear();
+        returned = scheduled = files.size();
+        held = 0;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import rubensandreoli.commons.utils.FileUtils;
+
+/**
+ * Options of {@code FileUtils#scanChildren(File, ScanOptions, ScanReport)} and
+ * {@code FileUtils#scanChildren(Path, ScanOptions, boolean, ScanReport)}.<br>
+ * Directories are identified by their file keys, so symbolic link cycles and
+ * directories reached twice, through links or bind mounts, are scanned only once.
+ * Files with more than one hard link can also be listed and counted only once,
+ * so size totals aren't inflated by the same data.
+ *
+ * @see FileKeySet
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ScanOptions {
+
+    private final int mode;
+    private final boolean showHidden;
+    private final boolean uniqueFiles;
+
+    public ScanOptions() {
+        this(FileUtils.FILES_AND_DIRECTORIES, true, false);
+    }
+
+    /**
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @param showHidden {@code true} to include hidden files and directories
+     * @param uniqueFiles {@code true} to skip hard links to files already found
+     */
+    public ScanOptions(int mode, boolean showHidden, boolean uniqueFiles) {
+        this.mode = mode;
+        this.showHidden = showHidden;
+        this.uniqueFiles = uniqueFiles;
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public boolean isShowHidden() {
+        return showHidden;
+    }
+
+    public boolean isUniqueFiles() {
+        return uniqueFiles;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+/**
+ * Counters of a directory tree scan, including the entries skipped because they
+ * had already been found through another path.
+ *
+ * @see ScanOptions
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ScanReport {
+
+    private long directories;
+    private long files;
+    private long bytes;
+    private long skippedDirectories;
+    private long skippedFiles;
+
+    public void addDirectory(){
+        directories++;
+    }
+
+    public void addFile(long size){
+        files++;
+        bytes += size;
+    }
+
+    /**
+     * Counts a directory that was already scanned, like the target of a
+     * symbolic link cycle.
+     */
+    public void skipDirectory(){
+        skippedDirectories++;
+    }
+
+    /**
+     * Counts a hard link to a file that was already found.
+     */
+    public void skipFile(){
+        skippedFiles++;
+    }
+
+    public long getDirectories() {
+        return directories;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * @return sum of the size of the files counted, in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getSkippedDirectories() {
+        return skippedDirectories;
+    }
+
+    public long getSkippedFiles() {
+        return skippedFiles;
+    }
+
+    public long getSkipped(){
+        return skippedDirectories + skippedFiles;
+    }
+
+    @Override
+    public String toString() {
+        return files+" files and "+directories+" directories ("+skippedFiles+" files and "
+                +skippedDirectories+" directories skipped), "+bytes+" bytes";
+    }
+
+}
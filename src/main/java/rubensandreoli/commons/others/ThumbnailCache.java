@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import javax.imageio.ImageIO;
+import rubensandreoli.commons.utils.FileUtils;
+import rubensandreoli.commons.utils.ImageUtils;
+
+/**
+ * Generates and keeps thumbnails of image files.<br>
+ * Lookups go through an in-memory LRU, then through a folder on disk, and only
+ * then the image is decoded, subsampled while reading. Entries are keyed by
+ * the image pathname, last modification and size, so a changed image gets a new thumbnail.<br>
+ * The folder on disk is kept under a byte budget: when a saved thumbnail exceeds
+ * it, the least recently used thumbnails are deleted until a quarter of the
+ * budget is free again, which also removes the stale thumbnails of changed images.
+ * Thumbnails read from disk are touched, so their last modified time tells when
+ * they were last used.<br>
+ * Concurrent generation is limited by a memory budget: a decode only starts when
+ * the estimated size of its subsampled bitmap fits in what is left of the budget.
+ *
+ * References:<br>
+ * https://stackoverflow.com/questions/11469483/java-lru-cache-using-linkedhashmap<br>
+ * https://specifications.freedesktop.org/thumbnail-spec/thumbnail-spec-latest.html
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class ThumbnailCache {
+
+    public static final int DEFAULT_SIZE = 128; //px
+    public static final int DEFAULT_MEMORY_ENTRIES = 512;
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024; //bytes
+    public static final long DEFAULT_DISK_BUDGET = 256L * 1024 * 1024; //bytes
+    private static final String FORMAT = "png";
+    private static final int KB = 1024;
+
+    private final File folder;
+    private final int size;
+    private final Map<String, BufferedImage> memory;
+    private final Semaphore budget;
+    private final int budgetKb;
+    private final Executor executor;
+    private final long diskBudget;
+    private final AtomicLong diskUsed = new AtomicLong(-1); //unknown until the first save
+    private final Object pruning = new Object();
+
+    public ThumbnailCache(File folder) {
+        this(folder, DEFAULT_SIZE, DEFAULT_MEMORY_ENTRIES, DEFAULT_MEMORY_BUDGET, IOExecutor.shared());
+    }
+
+    public ThumbnailCache(File folder, int size, int memoryEntries, long memoryBudget, Executor executor) {
+        this(folder, size, memoryEntries, memoryBudget, DEFAULT_DISK_BUDGET, executor);
+    }
+
+    /**
+     * @param folder directory where thumbnails are saved; it's created if it doesn't exist
+     * @param size size of the largest side of the thumbnails, must be positive
+     * @param memoryEntries maximum number of thumbnails kept in memory
+     * @param memoryBudget maximum amount of bytes used by images being decoded at the same time
+     * @param diskBudget maximum amount of bytes of thumbnails kept in the folder, must be positive
+     * @param executor executor used by asynchronous generation
+     */
+    public ThumbnailCache(File folder, int size, int memoryEntries, long memoryBudget, long diskBudget, Executor executor) {
+        if(size < 1) throw new IllegalArgumentException("parameter size "+size+" < 1");
+        if(diskBudget < 1) throw new IllegalArgumentException("parameter diskBudget "+diskBudget+" < 1");
+        this.folder = folder;
+        this.diskBudget = diskBudget;
+        this.size = size;
+        this.executor = executor;
+        budgetKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudget / KB));
+        budget = new Semaphore(budgetKb, true);
+        memory = new LinkedHashMap<>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        folder.mkdirs();
+    }
+
+    /**
+     * Returns the thumbnail of an image, generating it if necessary.
+     * This method blocks while the image is decoded; see
+     * {@code ThumbnailCache#getAsync(File)} for UI threads.
+     *
+     * @param image image file
+     * @return thumbnail; or {@code null} if the file isn't a readable image
+     */
+    public BufferedImage get(File image){
+        final String key = getKey(image);
+        BufferedImage thumb;
+        synchronized(memory){
+            thumb = memory.get(key);
+        }
+        if(thumb != null) return thumb;
+
+        final File cached = new File(folder, key+"."+FORMAT);
+        if(cached.isFile()){
+            try {
+                thumb = ImageIO.read(cached);
+                cached.setLastModified(System.currentTimeMillis()); //recently used, pruned last
+            } catch (IOException | SecurityException ex) {
+                thumb = null;
+            }
+        }
+        if(thumb == null){
+            thumb = generate(image);
+            if(thumb == null) return null;
+            save(thumb, cached);
+        }
+        synchronized(memory){
+            memory.put(key, thumb);
+        }
+        return thumb;
+    }
+
+    public CompletableFuture<BufferedImage> getAsync(File image){
+        return CompletableFuture.supplyAsync(() -> get(image), executor);
+    }
+
+    /**
+     * Generates the thumbnails of all images concurrently, calling the consumer as
+     * each one is ready. Thumbnails are delivered on the executor threads,
+     * {@code null} if the image couldn't be read.
+     *
+     * @param images image files
+     * @param consumer receives each image with its thumbnail
+     * @return future completed when all thumbnails were delivered
+     */
+    public CompletableFuture<Void> getAll(Collection<? extends File> images, BiConsumer<File, BufferedImage> consumer){
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[images.size()];
+        int i = 0;
+        for (File image : images) {
+            futures[i++] = getAsync(image).thenAccept(t -> consumer.accept(image, t));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private BufferedImage generate(File image){
+        final ImageInfo info = ImageUtils.probe(image);
+        if(info == null) return null;
+        final int step = ImageUtils.getSubsampling(info.getWidth(), info.getHeight(), size);
+        final int permits = (int) Math.min(budgetKb, Math.max(1, info.getDecodedSize() / ((long) step*step) / KB));
+        try {
+            budget.acquire(permits);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try{
+            final BufferedImage decoded = ImageUtils.readSubsampled(image, size);
+            return decoded == null? null : ImageUtils.scaleToFit(decoded, size);
+        }finally{
+            budget.release(permits);
+        }
+    }
+
+    private void save(BufferedImage thumb, File cached){
+        try {
+            final File tmp = File.createTempFile("thumb", ".tmp", folder);
+            try{
+                ImageIO.write(thumb, FORMAT, tmp);
+                try{
+                    Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }catch(AtomicMoveNotSupportedException ex){
+                    Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }finally{
+                FileUtils.deleteFile(tmp);
+            }
+            account(cached.length());
+        } catch (IOException ex) {
+            Logger.log.print(Level.WARNING, "failed saving thumbnail "+cached, ex);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" DISK BUDGET ">
+    private void account(long bytes){
+        if(diskUsed.get() < 0){
+            synchronized(pruning){
+                if(diskUsed.get() < 0){
+                    long used = 0;
+                    for (File thumb : listThumbnails()) {
+                        used += thumb.length();
+                    }
+                    diskUsed.set(used); //already counts the saved thumbnail
+                    bytes = 0;
+                }
+            }
+        }
+        if(diskUsed.addAndGet(bytes) > diskBudget) prune();
+    }
+
+    private File[] listThumbnails(){
+        final File[] thumbs = folder.listFiles(f -> f.getName().endsWith("."+FORMAT));
+        return thumbs == null? new File[0] : thumbs;
+    }
+
+    /**
+     * Deletes the least recently used thumbnails until three quarters of the disk
+     * budget are used, at most.
+     */
+    public void prune(){
+        synchronized(pruning){
+            final List<File> thumbs = Arrays.asList(listThumbnails());
+            FileSorter.sortByModified(thumbs);
+            long used = 0;
+            for (File thumb : thumbs) {
+                used += thumb.length();
+            }
+            final long target = diskBudget - diskBudget/4;
+            for (File thumb : thumbs) {
+                if(used <= target) break;
+                final long length = thumb.length();
+                if(FileUtils.deleteFile(thumb)) used -= length;
+            }
+            diskUsed.set(used);
+        }
+    }
+
+    /**
+     * Deletes all thumbnails saved in the folder; the ones in memory are kept.
+     */
+    public void clearDisk(){
+        synchronized(pruning){
+            for (File thumb : listThumbnails()) {
+                FileUtils.deleteFile(thumb);
+            }
+            diskUsed.set(0);
+        }
+    }
+    // </editor-fold>
+
+    private static String getKey(File image){
+        final String id = image.getAbsolutePath()+"|"+image.lastModified()+"|"+image.length();
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(id.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder(hash.length*2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) { //every java platform must support it
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public void clearMemory(){
+        synchronized(memory){
+            memory.clear();
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated, thread-safe, counters of a bulk move or copy.<br>
+ * The report is updated while the operation runs, so it can also be read for progress.
+ * 
+ * @see TransferListener
+ * @author Rubens A. Andreoli Jr.
+ */
+public class TransferReport {
+    
+    private final long start = System.nanoTime();
+    private volatile long end;
+    private final long totalFiles;
+    private final LongAdder done = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public TransferReport(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+    
+    public void add(TransferResult result){
+        switch(result.getOutcome()){
+            case TransferResult.FAILED:
+                failed.increment();
+                break;
+            case TransferResult.SKIPPED:
+                skipped.increment();
+                break;
+        }
+        bytes.add(result.getBytes());
+        done.increment();
+    }
+    
+    public void finish(){
+        end = System.nanoTime();
+    }
+
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+    
+    public long getDoneFiles(){
+        return done.sum();
+    }
+    
+    public long getFailedFiles(){
+        return failed.sum();
+    }
+    
+    public long getSkippedFiles(){
+        return skipped.sum();
+    }
+    
+    public long getBytes(){
+        return bytes.sum();
+    }
+
+    /**
+     * Returns the time spent so far, or in total if the operation has finished.
+     * 
+     * @return elapsed time in milliseconds
+     */
+    public long getElapsed(){
+        return ((end == 0? System.nanoTime() : end) - start) / 1_000_000;
+    }
+    
+    /**
+     * Returns the average amount of bytes written per second.
+     * 
+     * @return throughput in bytes per second
+     */
+    public double getThroughput(){
+        final long elapsed = Math.max(1, getElapsed());
+        return getBytes() * 1000d / elapsed;
+    }
+    
+    public double getFilesPerSecond(){
+        final long elapsed = Math.max(1, getElapsed());
+        return getDoneFiles() * 1000d / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return getDoneFiles()+"/"+totalFiles+" files ("+getFailedFiles()+" failed, "+getSkippedFiles()+" skipped), "
+                +getBytes()+" bytes in "+getElapsed()+" ms";
+    }
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+
+/**
+ * Outcome of moving or copying a single file.
+ * 
+ * @see FileMover
+ * @author Rubens A. Andreoli Jr.
+ */
+public class TransferResult {
+    
+    public static final int MOVED = 0;
+    public static final int COPIED = 1;
+    public static final int SKIPPED = 2;
+    public static final int FAILED = 3;
+    
+    private final File source, destination;
+    private final int outcome;
+    private final long bytes;
+    private final Exception exception;
+
+    public TransferResult(File source, File destination, int outcome, long bytes, Exception exception) {
+        this.source = source;
+        this.destination = destination;
+        this.outcome = outcome;
+        this.bytes = bytes;
+        this.exception = exception;
+    }
+
+    public File getSource() {
+        return source;
+    }
+
+    /**
+     * Returns where the file was placed.
+     * 
+     * @return destination file; or {@code null} if it couldn't be resolved
+     */
+    public File getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns what happened to the file.
+     * 
+     * @return {@code TransferResult#MOVED}, {@code TransferResult#COPIED}, 
+     *         {@code TransferResult#SKIPPED} or {@code TransferResult#FAILED}
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    public boolean isSuccess(){
+        return outcome != FAILED;
+    }
+
+    /**
+     * Returns the amount of bytes written to the destination.
+     * 
+     * @return bytes written; {@literal 0} if the file was renamed or skipped
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        final String[] outcomes = {"moved", "copied", "skipped", "failed"};
+        return source+" "+outcomes[outcome]+(destination == null? "" : " to "+destination)
+                +(exception == null? "" : ": "+exception.getMessage());
+    }
+    
+}
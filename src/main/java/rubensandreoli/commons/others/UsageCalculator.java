@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.others;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates the disk usage of directory trees ("du"), summing sizes bottom-up
+ * with each directory visited in parallel.<br>
+ * The direct files of every directory are summed once and cached by the
+ * directory last modified time. On the next calculation, directories whose time
+ * didn't change are neither listed nor have their files read again, so only the
+ * changed branches are recomputed. Changes made close to the listing time may
+ * not show in a time with coarse resolution, so those subtotals are always read
+ * again, like in {@code DirectoryCache}. A file rewritten in place doesn't change
+ * the time of its directory, call {@code UsageCalculator#invalidate(File)} in that case.
+ * The least recently used subtotals are evicted when the capacity is reached,
+ * and the ones of directories that can no longer be read are dropped.<br>
+ * Symbolic links are not followed.
+ *
+ * References:<br>
+ * https://docs.oracle.com/javase/tutorial/essential/concurrency/forkjoin.html<br>
+ * https://man7.org/linux/man-pages/man1/du.1.html
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public class UsageCalculator {
+
+    public static final int DEFAULT_CAPACITY = 65536; //directories
+    private static final long RACY_WINDOW = 2000; //ms, coarsest common time resolution (FAT)
+
+    private final ForkJoinPool pool;
+    private final Map<String, Snapshot> cache;
+
+    public UsageCalculator() {
+        this(IOExecutor.DEFAULT_THREADS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param threads number of directories read at the same time, must be positive
+     */
+    public UsageCalculator(int threads) {
+        this(threads, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param threads number of directories read at the same time, must be positive
+     * @param capacity maximum number of directory subtotals kept
+     */
+    public UsageCalculator(int threads, int capacity) {
+        pool = new ForkJoinPool(threads);
+        cache = new LinkedHashMap<>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Calculates the usage of a directory tree, reusing the cached subtotals of
+     * unchanged directories.
+     *
+     * @param root directory to be calculated
+     * @return usage of the tree; or {@code null} if the root isn't a readable directory
+     */
+    public DirectoryUsage calculate(File root){
+        if(!root.isDirectory()) return null;
+        try{
+            Files.newDirectoryStream(root.toPath()).close();
+        }catch(IOException | SecurityException ex){
+            return null; //not readable
+        }
+        return pool.invoke(new Task(root.toPath()));
+    }
+
+    /**
+     * Discards the cached subtotal of a directory, so it's read again on the next calculation.
+     *
+     * @param directory directory to be read again
+     */
+    public void invalidate(File directory){
+        synchronized(cache){
+            cache.remove(directory.toPath().toString());
+        }
+    }
+
+    public void clear(){
+        synchronized(cache){
+            cache.clear();
+        }
+    }
+
+    public void shutdown(){
+        pool.shutdown();
+    }
+
+    private Snapshot read(Path dir, FileTime modified){
+        final String key = dir.toString();
+        synchronized(cache){
+            final Snapshot cached = cache.get(key);
+            if(cached != null && modified != null && modified.equals(cached.modified)
+                    && cached.read - modified.toMillis() > RACY_WINDOW) return cached;
+        }
+
+        final Snapshot snapshot = new Snapshot(modified, System.currentTimeMillis());
+        final List<Path> subdirs = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)){
+            for (Path path : stream) {
+                try{
+                    final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if(attrs.isDirectory()){
+                        subdirs.add(path);
+                    }else if(attrs.isRegularFile()){
+                        snapshot.size += attrs.size();
+                        snapshot.files++;
+                        snapshot.histogram[DirectoryUsage.getBucket(attrs.size())]++;
+                    }
+                }catch(IOException ex){} //vanished or not accessible
+            }
+        }catch(IOException | SecurityException ex){
+            synchronized(cache){
+                cache.remove(key); //deleted or not accessible, may be readable next time
+            }
+            return snapshot;
+        }
+        snapshot.subdirs = subdirs.toArray(new Path[subdirs.size()]);
+        synchronized(cache){
+            cache.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc=" TASK ">
+    private class Task extends RecursiveTask<DirectoryUsage> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        private Task(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected DirectoryUsage compute() {
+            FileTime modified;
+            try{
+                modified = Files.getLastModifiedTime(dir, LinkOption.NOFOLLOW_LINKS);
+            }catch(IOException ex){
+                modified = null; //never reused
+            }
+            final Snapshot snapshot = read(dir, modified);
+
+            final List<Task> tasks = new ArrayList<>(snapshot.subdirs.length);
+            for (Path subdir : snapshot.subdirs) {
+                tasks.add(new Task(subdir));
+            }
+            invokeAll(tasks);
+
+            long size = snapshot.size, files = snapshot.files, folders = 0;
+            final long[] histogram = snapshot.histogram.clone();
+            final List<DirectoryUsage> children = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                final DirectoryUsage child = task.join();
+                size += child.getSize();
+                files += child.getFiles();
+                folders += child.getFolders() + 1;
+                final long[] childHistogram = child.getHistogram();
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] += childHistogram[i];
+                }
+                children.add(child);
+            }
+            return new DirectoryUsage(dir.toFile(), size, files, folders, histogram, children);
+        }
+    }
+
+    private static class Snapshot {
+        private final FileTime modified; //directory time before it was listed
+        private final long read;
+        private long size, files;
+        private final long[] histogram = new long[DirectoryUsage.HISTOGRAM_BUCKETS];
+        private Path[] subdirs = new Path[0];
+
+        private Snapshot(FileTime modified, long read) {
+            this.modified = modified;
+            this.read = read;
+        }
+    }
+    // </editor-fold>
+
+}
@@ -20,6 +20,7 @@ package rubensandreoli.commons.swing;
 
 import java.awt.Component;
 import java.io.File;
+import rubensandreoli.commons.others.PathAbbreviator;
 import rubensandreoli.commons.utils.FileUtils;
 import rubensandreoli.commons.utils.SwingUtils;
 
@@ -100,7 +101,7 @@ public class PathField extends javax.swing.JTextField{
         }
         
         SwingUtils.getChooser(mode).setSelectedFile(new File(file, File.separator));
-        super.setText(FileUtils.maskPathname(file.getPath(), length));
+        super.setText(PathAbbreviator.abbreviations.abbreviate(file.getPath(), length));
         this.file = file;
         fireActionPerformed();
         return true;
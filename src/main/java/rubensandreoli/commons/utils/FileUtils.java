@@ -25,24 +25,54 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
-import java.text.DecimalFormat;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Stack;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.swing.ImageIcon;
 import rubensandreoli.commons.exceptions.UnsupportedException;
+import rubensandreoli.commons.others.ArchiveScan;
+import rubensandreoli.commons.others.BufferPool;
+import rubensandreoli.commons.others.ByteSizeFormat;
 import rubensandreoli.commons.others.CachedFile;
+import rubensandreoli.commons.others.DirectoryPage;
+import rubensandreoli.commons.others.FileCopier;
+import rubensandreoli.commons.others.FileKeySet;
+import rubensandreoli.commons.others.FileType;
+import rubensandreoli.commons.others.FilenameSanitizer;
+import rubensandreoli.commons.others.PathAbbreviator;
+import rubensandreoli.commons.others.ScanOptions;
+import rubensandreoli.commons.others.ScanReport;
+import rubensandreoli.commons.others.TransferListener;
+import rubensandreoli.commons.others.TransferReport;
 
 /** 
  * References:<br>
@@ -68,12 +98,20 @@ public final class FileUtils {
         IMAGES_EXT.add(".webp");
     }
     
+    public static final HashSet<String> ARCHIVES_EXT = new HashSet<>();
+    static {
+        ARCHIVES_EXT.add(".zip");
+        ARCHIVES_EXT.add(".cbz");
+        ARCHIVES_EXT.add(".jar");
+    }
+    
     public static final String separator = File.separator;
     private static final Pattern FOLDER_PATTERN = Pattern.compile("([^"+Matcher.quoteReplacement(separator)+"]*["+Matcher.quoteReplacement(separator)+"]+)");
-    private static final String FOLDER_INVALID_CHARS_REGEX = "[*?\"<>|]";
-    private static final String FILENAME_INVALID_CHARS_REGEX = "[\\/\\\\:\\*?\\\"<\\>|]";
-    private static final String EXTENSION_REGEX = "^.[a-z]{3,}$";
-    private static final String EXTENSION_INVALID_CHARS_REGEX = "[^a-z-A-Z\\.]";
+    private static final FilenameSanitizer FOLDER_SANITIZER = new FilenameSanitizer("*?\"<>|", false, false, FilenameSanitizer.NO_LIMIT);
+    private static final FilenameSanitizer FILENAME_SANITIZER = new FilenameSanitizer("/\\:*?\"<>|", false, false, FilenameSanitizer.NO_LIMIT);
+    private static final FilenameSanitizer EXTENSION_SANITIZER = FilenameSanitizer.allowing(".-abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ", FilenameSanitizer.NO_LIMIT);
+    private static final boolean UNIX_SEPARATOR = File.separatorChar == '/';
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8; //some VMs reserve header words
     public static final int MASKED_FILENAME_MIN_LENGTH = 5;
     public static final int FILEPATH_MAX_LENGTH = 255;
     
@@ -90,11 +128,16 @@ public final class FileUtils {
     
     // <editor-fold defaultstate="collapsed" desc=" PARSE PATHNAME ">
     public static String getParent(String pathname){
-        return new File(pathname).getParent();
+        if(!UNIX_SEPARATOR) return new File(pathname).getParent();
+        pathname = normalize(pathname);
+        final int index = pathname.lastIndexOf('/');
+        if(index == -1) return null;
+        if(index == 0) return pathname.length() > 1? separator : null; //root prefix
+        return pathname.substring(0, index);
     }
 
     public static String getParentName(String pathname){
-        return new File(pathname).getParentFile().getName();
+        return getName(getParent(pathname));
     }
     
     public static String getRoot(String pathname){
@@ -142,11 +185,103 @@ public final class FileUtils {
     }
 
     public static String normalize(String pathname){
-        return new File(pathname).getPath();
+        if(!UNIX_SEPARATOR) return new File(pathname).getPath();
+        final int length = pathname.length();
+        char prev = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = pathname.charAt(i);
+            if(c == '/' && (prev == '/' || i == length-1)){ //duplicated or trailing separator
+                final StringBuilder sb = new StringBuilder(length).append(pathname, 0, i);
+                for (; i < length; i++) {
+                    final char n = pathname.charAt(i);
+                    if(n != '/' || prev != '/') sb.append(n);
+                    prev = n;
+                }
+                if(sb.length() > 1 && sb.charAt(sb.length()-1) == '/') sb.setLength(sb.length()-1);
+                return sb.toString();
+            }
+            prev = c;
+        }
+        return pathname;
     }
 
     public static String getName(String pathname){
-        return new File(pathname).getName();
+        if(!UNIX_SEPARATOR) return new File(pathname).getName();
+        final int end = getNameEnd(pathname);
+        return pathname.substring(getNameStart(pathname, end), end);
+    }
+    
+    /**
+     * Returns the index after the last character of the name denoted by 
+     * this pathname, ignoring trailing separators. Both {@literal '/'} and the 
+     * system separator are considered separators. No {@code String} is created, 
+     * so it's suitable for hot loops over many pathnames.
+     * 
+     * @param pathname abstract pathname
+     * @return end index of the name (exclusive)
+     */
+    public static int getNameEnd(CharSequence pathname){
+        int end = pathname.length();
+        while(end > 0 && isSeparator(pathname.charAt(end-1))) end--;
+        return end;
+    }
+    
+    /**
+     * Returns the index of the first character of the name denoted by this pathname.
+     * 
+     * @see FileUtils#getNameEnd(CharSequence)
+     * @param pathname abstract pathname
+     * @param end end index of the name, as returned by {@code FileUtils#getNameEnd(CharSequence)}
+     * @return start index of the name (inclusive)
+     */
+    public static int getNameStart(CharSequence pathname, int end){
+        int start = end;
+        while(start > 0 && !isSeparator(pathname.charAt(start-1))) start--;
+        return start;
+    }
+    
+    /**
+     * Returns the index of the {@literal '.'} (dot) that starts the extension 
+     * of the name between the given indexes; following the same rules as
+     * {@code FileUtils#getExtension(String, String)}.
+     * 
+     * @see FileUtils#getExtensionEnd(CharSequence, int, int)
+     * @param pathname abstract pathname
+     * @param start start index of the name
+     * @param end end index of the name
+     * @return index of the dot; or {@code -1} if the name doesn't have a valid extension
+     */
+    public static int getExtensionStart(CharSequence pathname, int start, int end){
+        for (int i = end-1; i >= start; i--) {
+            if(pathname.charAt(i) == '.'){
+                return getExtensionEnd(pathname, i, end) == -1? -1 : i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the index after the last character of the extension starting at the 
+     * given dot: the extension is the dot followed by at least 3 lowercase 
+     * letters, anything after them is discarded.
+     * 
+     * @param pathname abstract pathname
+     * @param dot index of the dot, as returned by {@code FileUtils#getExtensionStart(CharSequence, int, int)}
+     * @param end end index of the name
+     * @return end index of the extension (exclusive); or {@code -1} if it's not valid
+     */
+    public static int getExtensionEnd(CharSequence pathname, int dot, int end){
+        int i = dot+1;
+        while(i < end){
+            final char c = pathname.charAt(i);
+            if(c < 'a' || c > 'z') break;
+            i++;
+        }
+        return i-dot > 3? i : -1;
+    }
+    
+    private static boolean isSeparator(char c){
+        return c == '/' || c == File.separatorChar;
     }
     
     /**
@@ -169,7 +304,7 @@ public final class FileUtils {
      * It can also remove any characters considered invalid  by Windows OS.
      * 
      * @see Utils#parseFile(String) 
-     * @see Utils#FILENAME_INVALID_CHARS_REGEX
+     * @see FileUtils#sanitizeFilename(String)
      * @param pathname abstract pathname from which the name of the file will be parsed
      * @param normalize {@code true} to remove invalid characters; {@code false} otherwise
      * @return last item of the pathname without extension {@code .ext} or an empty 
@@ -177,9 +312,9 @@ public final class FileUtils {
      */
     public static String getFilename(String pathname, boolean normalize){
         String name = getName(pathname);
-        final int extIndex = name.lastIndexOf(".");
+        final int extIndex = name.lastIndexOf('.');
         if(extIndex != -1) name = name.substring(0, extIndex);
-        if(normalize) name = name.replaceAll(FILENAME_INVALID_CHARS_REGEX, "");
+        if(normalize) name = FILENAME_SANITIZER.sanitize(name);
         return name;
     }
  
@@ -191,7 +326,7 @@ public final class FileUtils {
      * 
      * @see Utils#parseFile(String) 
      * @see Utils#DEFAULT_EXTENSION
-     * @see Utils#EXTENSION_REGEX
+     * @see Utils#getExtensionStart(CharSequence, int, int)
      * @param pathname abstract pathname from which the extension of the file will be parsed
      * @param defaultValue default extension in case none is found
      * @return {@code String} containing the extension of the file without invalid characters; 
@@ -199,21 +334,9 @@ public final class FileUtils {
      */
     public static String getExtension(String pathname, String defaultValue){
         final String name = getName(pathname);
-        String ext = defaultValue;
-        final int extIndex = name.lastIndexOf(".");
-        if(extIndex != -1){
-            String tmpExt = name.substring(extIndex);
-            boolean empty = false;
-            while(!tmpExt.matches(EXTENSION_REGEX)){
-                if(tmpExt.isEmpty()){
-                    empty = true;
-                    break;
-                }
-                tmpExt = tmpExt.substring(0, tmpExt.length()-1);
-            }
-            if(!empty) ext = tmpExt;
-        }
-        return ext;
+        final int extIndex = getExtensionStart(name, 0, name.length());
+        if(extIndex == -1) return defaultValue;
+        return name.substring(extIndex, getExtensionEnd(name, extIndex, name.length()));
     }
     
     public static String getExtension(String pathname){
@@ -231,27 +354,17 @@ public final class FileUtils {
         return buildPathname(new File(root), nodes);
     }
 
+    /**
+     * Abbreviates the pathname to a maximum amount of characters, replacing its
+     * middle with an ellipsis.
+     * 
+     * @see PathAbbreviator#mask(String, int)
+     * @param pathname pathname to be abbreviated
+     * @param maxLenght maximum amount of characters
+     * @return abbreviated pathname
+     */
     public static String maskPathname(String pathname, int maxLenght){
-        if(pathname.isEmpty()) return "";
-        pathname = normalize(pathname);
-        if((maxLenght < MASKED_FILENAME_MIN_LENGTH) || (pathname.length() <= maxLenght)) return pathname;
-        
-        String formated = pathname.substring(pathname.length()-maxLenght, pathname.length());
-        formated = formated.replaceFirst("([^\\"+separator
-                +"]{3}(?=\\"+separator
-                +"))|(.{3})(?=[^\\"+separator
-                +"]*$)", "..."); //or only (.{3,}?(?=\/))|(.{3})
-
-        String root = getRoot(pathname);
-        if(root != null){
-            formated = formated.replaceFirst(".{"+root.length()
-                    +",}(\\.{3})|(^.{"+(root.length()+3)
-                    +",}?(?=\\"+separator+"))", Matcher.quoteReplacement(root)+"..."); //if separator is "\" Matcher.quoteReplacement(root)
-            int index = formated.indexOf("..."+separator);
-            if(index < root.length()) formated = formated.substring(Math.max(0, index));
-        }
-
-        return formated;
+        return PathAbbreviator.mask(pathname, maxLenght);
     }
     // </editor-fold>
     
@@ -271,8 +384,8 @@ public final class FileUtils {
      */
     public static File createValidFile(File folder, String filename, String extension){
         //FIX INVALID CHARACTERS
-        filename = filename.replaceAll(FILENAME_INVALID_CHARS_REGEX, "");
-        extension = extension.replaceAll(EXTENSION_INVALID_CHARS_REGEX, "");
+        filename = sanitizeFilename(filename);
+        extension = sanitizeExtension(extension);
         File file = new File(folder, new StringBuilder(filename).append(extension).toString());
 
         //FIX FILEPATH LENGTH
@@ -326,7 +439,7 @@ public final class FileUtils {
      * @return valid {@code File} ready to be saved
      */
     public static File createValidFile(String folder, String filename, String extension){
-        folder = folder.replaceAll(FOLDER_INVALID_CHARS_REGEX, "");
+        folder = sanitizeFolder(folder);
         return createValidFile(new File(folder), filename, extension);
     }
     
@@ -345,6 +458,37 @@ public final class FileUtils {
     public static File createValidFile(String folder, String file){
         return createValidFile(folder, getFilename(file), getExtension(file));
     }
+    
+    /**
+     * Removes all characters considered invalid in a filename by Windows OS.
+     * 
+     * @param filename name of the file without extension, must not be {@code null}
+     * @return filename without invalid characters
+     */
+    public static String sanitizeFilename(String filename){
+        return FILENAME_SANITIZER.sanitize(filename);
+    }
+    
+    /**
+     * Removes all characters that are not letters or {@literal '.'} (dot) from an extension.
+     * 
+     * @param extension extension of the file, must not be {@code null}
+     * @return extension without invalid characters
+     */
+    public static String sanitizeExtension(String extension){
+        return EXTENSION_SANITIZER.sanitize(extension);
+    }
+    
+    /**
+     * Removes all characters considered invalid in a pathname by Windows OS,
+     * keeping separators and drive letters.
+     * 
+     * @param folder abstract directory pathname, must not be {@code null}
+     * @return pathname without invalid characters
+     */
+    public static String sanitizeFolder(String folder){
+        return FOLDER_SANITIZER.sanitize(folder);
+    }
     // </editor-fold>
  
     // <editor-fold defaultstate="collapsed" desc=" MODIFY "> 
@@ -384,6 +528,77 @@ public final class FileUtils {
         return moved;
     }
     
+    /**
+     * Copies a file using {@code FileChannel#transferTo}, that lets the operating
+     * system move the bytes without bringing them into the heap. The destination
+     * is overwritten and receives the last modified time of the source.
+     * 
+     * @param source file to be copied
+     * @param target destination file, its folder must exist
+     * @return amount of bytes copied
+     * @throws IOException if the source can't be read or the target can't be written
+     */
+    public static long copyFile(File source, File target) throws IOException{
+        return copyFile(source, target, true);
+    }
+    
+    /**
+     * Same as {@code FileUtils#copyFile(File, File)}, optionally leaving the
+     * destination with the time of the copy.
+     * 
+     * @param source file to be copied
+     * @param target destination file, its folder must exist
+     * @param preserveTime {@code true} to copy the last modified time of the source
+     * @return amount of bytes copied
+     * @throws IOException if the source can't be read or the target can't be written
+     */
+    public static long copyFile(File source, File target, boolean preserveTime) throws IOException{
+        return copyFile(source, target, preserveTime, true);
+    }
+    
+    /**
+     * Same as {@code FileUtils#copyFile(File, File, boolean)}, optionally failing
+     * instead of overwriting an existing destination.
+     * 
+     * @param source file to be copied
+     * @param target destination file, its folder must exist
+     * @param preserveTime {@code true} to copy the last modified time of the source
+     * @param replace {@code true} to overwrite the target if it exists
+     * @return amount of bytes copied
+     * @throws FileAlreadyExistsException if the target exists and must not be replaced
+     * @throws IOException if the source can't be read or the target can't be written
+     */
+    public static long copyFile(File source, File target, boolean preserveTime, boolean replace) throws IOException{
+        long copied = 0;
+        try(var in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                var out = replace? 
+                        FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING) :
+                        FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)){
+            final long size = in.size();
+            while(copied < size){
+                final long transferred = in.transferTo(copied, size - copied, out);
+                if(transferred <= 0) break; //source shrank
+                copied += transferred;
+            }
+        }
+        if(preserveTime) Files.setLastModifiedTime(target.toPath(), Files.getLastModifiedTime(source.toPath()));
+        return copied;
+    }
+    
+    /**
+     * Copies a file or a whole directory tree concurrently, skipping files already
+     * copied and preserving attributes.
+     * 
+     * @see FileCopier#copy(File, File, TransferListener)
+     * @param source file or directory to be copied
+     * @param target destination file, or directory that will mirror the source directory
+     * @param listener receives the outcome of each file with the running totals; or {@code null}
+     * @return aggregated outcomes
+     */
+    public static TransferReport copyTree(File source, File target, TransferListener listener){
+        return new FileCopier().copy(source, target, listener);
+    }
+    
     /**
      * Deletes the file or directory. If it is a directory, it must be empty.
      * Convenience method for {@code java.io.File#delete()} that doesn't
@@ -454,9 +669,7 @@ public final class FileUtils {
     
     public static String formatFilesize(long size) {
         if(size <= 0) return "0";
-        final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" }; //TODO: remove from here
-        int digitGroups = (int) (Math.log10(size)/Math.log10(1024));
-        return new DecimalFormat("#,##0.#").format(size/Math.pow(1024, digitGroups)) + " " + units[digitGroups];
+        return ByteSizeFormat.getInstance().format(size);
     }
     
     public static byte[] readAllBytes(File file){
@@ -468,16 +681,63 @@ public final class FileUtils {
     }
 
     public static byte[] readFirstBytes(File file, int amount){
-        try(var bi = new BufferedInputStream(new FileInputStream(file), amount)){
-            return bi.readNBytes(amount);
+        try(var in = new FileInputStream(file)){ //a single read, buffering would only add a copy
+            return in.readNBytes(amount);
         } catch (IOException ex) {
             return null;
         }
     }
+    
+    /**
+     * Reads the first bytes of a file into a buffer supplied by the caller,
+     * so that reading many files doesn't allocate an array for each one.
+     * 
+     * @param file file to be read
+     * @param buffer destination array, filled from the start
+     * @return amount of bytes read, smaller than the buffer if the file is shorter;
+     *         or {@literal -1} if the file couldn't be read
+     */
+    public static int readFirstBytes(File file, byte[] buffer){
+        return readFirstBytes(file, buffer, 0, buffer.length);
+    }
+    
+    public static int readFirstBytes(File file, byte[] buffer, int offset, int length){
+        try(var in = new FileInputStream(file)){
+            return in.readNBytes(buffer, offset, length);
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Reads a file into a buffer supplied by the caller, from its position up to
+     * its limit, so that reading many files doesn't allocate an array for each one.
+     * Direct buffers, like the ones of {@code BufferPool}, are filled without an 
+     * intermediary copy. The buffer is not flipped.
+     * 
+     * @see BufferPool#acquire(int)
+     * @param file file to be read
+     * @param buffer destination buffer
+     * @return amount of bytes read, smaller than the remaining space if the file is shorter;
+     *         or {@literal -1} if the file couldn't be read
+     */
+    public static int read(File file, ByteBuffer buffer){
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            int total = 0;
+            while(buffer.hasRemaining()){
+                final int read = channel.read(buffer);
+                if(read == -1) break;
+                total += read;
+            }
+            return total;
+        } catch (IOException | InvalidPathException ex) {
+            return -1;
+        }
+    }
 
     public static Byte readFirstByte(File file){
-        try(var r = new FileReader(file)){
-            return (byte) r.read(); //does NOT support extend chars (2 bytes)
+        try(var in = new FileInputStream(file)){ //raw byte, no charset decoding
+            return (byte) in.read();
         } catch (Exception ex) {
             return null;
         }
@@ -520,49 +780,106 @@ public final class FileUtils {
     }
     
     public static List<File> scanChildren(File root, int mode, boolean showHidden){
+        return scanChildren(root, new ScanOptions(mode, showHidden, false), new ScanReport());
+    }
+    
+    /**
+     * Scans a directory tree, entering each directory only once, even if it's
+     * reached again through a symbolic link cycle, another link or a bind mount.
+     * Directories are listed depth-first, but in {@code FileUtils#DIRECTORIES_ONLY}
+     * mode, where they are listed breadth-first. Entries whose attributes can't be
+     * read, like broken links, are listed as files.
+     * 
+     * @param root directory to be scanned
+     * @param options what to list
+     * @param report counters updated during the scan
+     * @return files found, or {@code null} if the root isn't a directory
+     */
+    public static List<File> scanChildren(File root, ScanOptions options, ScanReport report){
         if(!root.isDirectory()) return null;
+        final int mode = options.getMode();
         final List<File> files = new ArrayList<>();
-        
-        switch(mode){
-            case FILES_ONLY: {
-                final Stack<File> folders = new Stack<>();
-                folders.add(root);
-                while(!folders.empty()){
-                    final File[] folderFiles = folders.pop().listFiles(f -> showHidden || !f.isHidden());
-                    if(folderFiles == null) continue;
-                    for(File file : folderFiles){
-                        if(file.isDirectory()) folders.push(file);
-                        else files.add(file);
+        final FileKeySet directories = new FileKeySet();
+        final FileKeySet links = options.isUniqueFiles()? new FileKeySet() : null;
+        final ScanEntry entry = new ScanEntry();
+        final Deque<File> folders = new ArrayDeque<>();
+        if(entry.read(root.toPath())) entry.addTo(directories);
+        folders.add(root);
+        while(!folders.isEmpty()){
+            final File folder = mode == DIRECTORIES_ONLY? folders.pollFirst() : folders.pollLast();
+            if(mode != FILES_ONLY) files.add(folder);
+            report.addDirectory();
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath())){
+                for (Path path : stream) {
+                    if(!options.isShowHidden() && isHidden(path)) continue;
+                    if(!entry.read(path)){
+                        if(mode != DIRECTORIES_ONLY) files.add(path.toFile());
+                        report.addFile(0);
+                    }else if(entry.directory){
+                        if(entry.addTo(directories)) folders.add(path.toFile());
+                        else report.skipDirectory();
+                    }else if(links != null && entry.isLinked() && !entry.addTo(links)){
+                        report.skipFile();
+                    }else{
+                        if(mode != DIRECTORIES_ONLY) files.add(path.toFile());
+                        report.addFile(entry.size);
                     }
                 }
-                break;}
-            
-            case DIRECTORIES_ONLY:{
-                files.add(root);
-
-                for(int i=0; i<files.size(); i++){
-                    final File[] folders = files.get(i).listFiles(f -> f.isDirectory() && (showHidden || !f.isHidden()));
-                    if(folders != null) files.addAll(Arrays.asList(folders));
-                }
-                break;}
-            
-            case FILES_AND_DIRECTORIES:{
-                final Stack<File> folders = new Stack<>();
-                folders.add(root);
-                while(!folders.empty()){
-                    final File folder = folders.pop();
-                    files.add(folder);
-                    final File[] folderFiles = folder.listFiles(f -> showHidden || !f.isHidden());
-                    if(folderFiles == null) continue;
-                    for(File file : folderFiles){
-                        if(file.isDirectory()) folders.push(file);
-                        else files.add(file);
-                    }
+            }catch(IOException | InvalidPathException | SecurityException | DirectoryIteratorException ex){} //not accessible
+        }
+        return files;
+    }
+    
+    /**
+     * Attributes of a scanned entry, read in a single call and reused between entries.
+     */
+    private static class ScanEntry {
+        
+        private static final boolean UNIX = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+        private static final String UNIX_ATTRIBUTES = "unix:isDirectory,size,dev,ino,nlink";
+        
+        private boolean unix; //archives don't have unix attributes
+        private boolean directory;
+        private long size, device, inode;
+        private int links;
+        private Object key;
+        
+        private boolean read(Path path){
+            unix = UNIX && path.getFileSystem() == FileSystems.getDefault();
+            try{
+                if(unix){
+                    final Map<String, Object> attrs = Files.readAttributes(path, UNIX_ATTRIBUTES);
+                    directory = (Boolean) attrs.get("isDirectory");
+                    size = (Long) attrs.get("size");
+                    device = (Long) attrs.get("dev");
+                    inode = (Long) attrs.get("ino");
+                    links = (Integer) attrs.get("nlink");
+                }else{
+                    final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    directory = attrs.isDirectory();
+                    size = attrs.size();
+                    links = 0; //unknown
+                    key = attrs.fileKey();
+                    if(key == null && directory) key = path.toRealPath(); //also tells archives apart
                 }
-                break;}
-        }       
+                return true;
+            }catch(IOException | SecurityException | UnsupportedOperationException | IllegalArgumentException ex){
+                return false;
+            }
+        }
+        
+        private boolean isLinked(){
+            return links != 1;
+        }
+        
+        /**
+         * @return {@code false} if the entry was already in the set
+         */
+        private boolean addTo(FileKeySet set){
+            if(unix) return set.add(device, inode);
+            return key == null || set.add(key);
+        }
         
-        return files;
     }
 
     public static List<File> listChildren(File root){
@@ -581,33 +898,264 @@ public final class FileUtils {
     
     public static void visitChildren(File root, int mode, boolean showHidden, Consumer<File> consumer){
         if(!root.isDirectory()) return;
-        final File[] listOfFiles = root.listFiles();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(root.toPath())){
+            for (Path path : stream) {
+                final File file = path.toFile();
+                if(accept(file, mode, showHidden)) consumer.accept(file);
+            }
+        }catch(IOException | InvalidPathException | SecurityException | DirectoryIteratorException ex){} //not accessible
+    }
+    
+    private static boolean accept(File file, int mode, boolean showHidden){
         switch(mode){
             case FILES_ONLY:
-                for (File file : listOfFiles) {
-                    if (file.isFile() && (showHidden || !file.isHidden())) {
-                        consumer.accept(file);
-                    }
-                }
+                if(!file.isFile()) return false;
                 break;
             case DIRECTORIES_ONLY:
-                for (File file : listOfFiles) {
-                    if (file.isDirectory() && (showHidden || !file.isHidden())) {
-                        consumer.accept(file);
-                    }
-                }
+                if(!file.isDirectory()) return false;
                 break;
-            case FILES_AND_DIRECTORIES:
-                for (File file : listOfFiles) {
-                    if (showHidden || !file.isHidden()) {
-                        consumer.accept(file);
+        }
+        return showHidden || !file.isHidden();
+    }
+    
+    /**
+     * Lists a window of the children of a directory, streaming the entries so
+     * only the window is kept in memory, however big the directory is.
+     * Entries come in the order of the file system.
+     * 
+     * @see FileUtils#listPage(File, int, boolean, String, int)
+     * @param root directory to be listed
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @param showHidden {@code true} to include hidden files and directories
+     * @param offset amount of matching entries to be skipped
+     * @param limit maximum amount of entries in the page, must be positive
+     * @return the page; empty if the directory can't be read
+     */
+    public static DirectoryPage listPage(File root, int mode, boolean showHidden, int offset, int limit){
+        return listPage(root, mode, showHidden, offset, null, limit);
+    }
+    
+    /**
+     * Lists the page after the one that returned the token. Resuming by token only
+     * compares the names of the skipped entries, without reading their attributes,
+     * and isn't affected by entries removed before the last one returned.
+     * 
+     * @param root directory to be listed
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @param showHidden {@code true} to include hidden files and directories
+     * @param token token of the previous page; or {@code null} for the first page
+     * @param limit maximum amount of entries in the page, must be positive
+     * @return the page; empty if the directory can't be read
+     */
+    public static DirectoryPage listPage(File root, int mode, boolean showHidden, String token, int limit){
+        if(token == null) return listPage(root, mode, showHidden, 0, null, limit);
+        return listPage(root, mode, showHidden, DirectoryPage.getTokenOffset(token), DirectoryPage.getTokenName(token), limit);
+    }
+    
+    private static DirectoryPage listPage(File root, int mode, boolean showHidden, int offset, String after, int limit){
+        if(limit < 1) throw new IllegalArgumentException("parameter limit "+limit+" < 1");
+        if(offset < 0) throw new IllegalArgumentException("parameter offset "+offset+" < 0");
+        final List<File> files = new ArrayList<>(Math.min(limit, 1024));
+        if(after != null){
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(root.toPath())){
+                final Iterator<Path> iterator = stream.iterator();
+                while(iterator.hasNext()){
+                    if(iterator.next().getFileName().toString().equals(after)){
+                        return new DirectoryPage(files, offset, fill(iterator, mode, showHidden, limit, files));
                     }
                 }
-                break;
+            }catch(IOException | InvalidPathException | SecurityException | DirectoryIteratorException ex){
+                return new DirectoryPage(files, offset, false);
+            }
+        }
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(root.toPath())){ //last entry was removed, resume by position
+            final Iterator<Path> iterator = stream.iterator();
+            for (int skipped = 0; skipped < offset && iterator.hasNext();) {
+                if(accept(iterator.next().toFile(), mode, showHidden)) skipped++;
+            }
+            return new DirectoryPage(files, offset, fill(iterator, mode, showHidden, limit, files));
+        }catch(IOException | InvalidPathException | SecurityException | DirectoryIteratorException ex){
+            return new DirectoryPage(files, offset, false);
         }
     }
+    
+    /**
+     * @return {@code true} if there are matching entries after the page
+     */
+    private static boolean fill(Iterator<Path> iterator, int mode, boolean showHidden, int limit, List<File> files){
+        while(iterator.hasNext()){
+            final File file = iterator.next().toFile();
+            if(!accept(file, mode, showHidden)) continue;
+            if(files.size() == limit) return true;
+            files.add(file);
+        }
+        return false;
+    }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc=" ARCHIVES "> 
+    /**
+     * Tests if the file has the extension of a zip based archive.
+     * 
+     * @see FileUtils#ARCHIVES_EXT
+     * @param file file to be tested
+     * @return {@code true} if and only if the extension is a known archive extension;
+     *         {@code false} otherwise
+     */
+    public static boolean isArchive(File file){
+        final String name = file.getName();
+        final int extIndex = name.lastIndexOf('.');
+        return extIndex != -1 && ARCHIVES_EXT.contains(name.substring(extIndex).toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Opens a zip archive as a read-only file system, so its entries can be
+     * scanned and read as {@code Path}s, without extracting them.
+     * The archive stays open until the file system of the returned path is closed.
+     * 
+     * @param archive zip archive
+     * @return root directory of the archive
+     * @throws IOException if the file isn't a readable zip archive
+     */
+    public static Path openArchive(File archive) throws IOException{
+        try{
+            return FileSystems.newFileSystem(archive.toPath(), (ClassLoader) null).getPath("/");
+        }catch(ProviderNotFoundException | InvalidPathException ex){
+            throw new IOException("File '"+archive+"' is not a supported archive", ex);
+        }
+    }
+    
+    /**
+     * Scans a directory tree like {@code FileUtils#scanChildren(File, int, boolean)},
+     * entering each directory only once, and optionally listing the entries of the
+     * archives found as if they were folders.
+     * As in that method, the root is listed too, but in {@code FileUtils#FILES_ONLY}
+     * mode; the roots of the archives found aren't, since the archive files themselves
+     * are listed. Directories are listed depth-first in every mode. Opened archives
+     * are owned by the returned scan, that must be closed after the entries are no
+     * longer needed.
+     * 
+     * @see FileUtils#isArchive(File)
+     * @param root directory to be scanned; or the root of an opened archive
+     * @param mode {@code FileUtils#FILES_ONLY}, {@code FileUtils#DIRECTORIES_ONLY} or {@code FileUtils#FILES_AND_DIRECTORIES}
+     * @param showHidden {@code true} to include hidden files and directories
+     * @param openArchives {@code true} to list the entries of archives
+     * @return paths found, or {@code null} if the root isn't a directory
+     */
+    public static ArchiveScan scanChildren(Path root, int mode, boolean showHidden, boolean openArchives){
+        return scanChildren(root, new ScanOptions(mode, showHidden, false), openArchives, new ScanReport());
+    }
+    
+    /**
+     * Same as {@code FileUtils#scanChildren(Path, int, boolean, boolean)}, with the
+     * hard link and counting options of {@code FileUtils#scanChildren(File, ScanOptions, ScanReport)}.
+     * Hard links to an archive already found are neither listed nor opened.
+     * 
+     * @param root directory to be scanned; or the root of an opened archive
+     * @param options what to list
+     * @param openArchives {@code true} to list the entries of archives
+     * @param report counters updated during the scan
+     * @return paths found, or {@code null} if the root isn't a directory
+     */
+    public static ArchiveScan scanChildren(Path root, ScanOptions options, boolean openArchives, ScanReport report){
+        if(!Files.isDirectory(root)) return null;
+        final int mode = options.getMode();
+        final List<Path> paths = new ArrayList<>();
+        final List<FileSystem> archives = new ArrayList<>();
+        final ArchiveScan scan = new ArchiveScan(paths, archives);
+        final FileKeySet directories = new FileKeySet();
+        final FileKeySet links = options.isUniqueFiles()? new FileKeySet() : null;
+        final ScanEntry entry = new ScanEntry();
+        final Stack<Path> folders = new Stack<>();
+        if(entry.read(root)) entry.addTo(directories);
+        folders.push(root);
+        try{
+            while(!folders.empty()){
+                final Path folder = folders.pop();
+                if(mode != FILES_ONLY && (folder == root || !isArchiveRoot(folder))) paths.add(folder);
+                report.addDirectory();
+                try(DirectoryStream<Path> stream = Files.newDirectoryStream(folder)){
+                    for (Path path : stream) {
+                        if(!options.isShowHidden() && isHidden(path)) continue;
+                        final boolean read = entry.read(path);
+                        if(read && entry.directory){
+                            if(entry.addTo(directories)) folders.push(path);
+                            else report.skipDirectory(); //like a link cycle
+                        }else if(read && links != null && entry.isLinked() && !entry.addTo(links)){
+                            report.skipFile();
+                        }else{
+                            if(mode != DIRECTORIES_ONLY) paths.add(path);
+                            report.addFile(read? entry.size : 0);
+                            if(openArchives && path.getFileSystem() == FileSystems.getDefault() && isArchive(path.toFile())){
+                                try{
+                                    final Path archive = openArchive(path.toFile());
+                                    archives.add(archive.getFileSystem());
+                                    folders.push(archive);
+                                }catch(IOException ex){} //listed as a regular file
+                            }
+                        }
+                    }
+                }catch(IOException | SecurityException | DirectoryIteratorException ex){} //not accessible
+            }
+        }catch(RuntimeException | Error ex){
+            scan.close();
+            throw ex;
+        }
+        return scan;
+    }
+    
+    private static boolean isArchiveRoot(Path path){
+        return path.getFileSystem() != FileSystems.getDefault() && path.getParent() == null;
+    }
+    
+    private static boolean isHidden(Path path){
+        try{
+            return Files.isHidden(path);
+        }catch(IOException ex){
+            return false;
+        }
+    }
+    
+    public static byte[] readAllBytes(Path path){
+        try{
+            if(Files.size(path) > MAX_ARRAY_SIZE) return null;
+            return Files.readAllBytes(path);
+        }catch(IOException ex){
+            return null;
+        }
+    }
+    
+    public static byte[] readFirstBytes(Path path, int amount){
+        try(var in = Files.newInputStream(path)){
+            return in.readNBytes(amount);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Tests if the path, possibly an archive entry, is a readable image by decoding it.
+     * Archive entries are decoded from a stream, cached in memory instead of temporary files.
+     * 
+     * @see FileUtils#isImage(File)
+     * @param path path to be tested
+     * @return {@code true} if and only if the image could be decoded;
+     *         {@code false} otherwise
+     */
+    public static boolean isImage(Path path){
+        if(path.getFileSystem() == FileSystems.getDefault()) return isImage(path.toFile());
+        try(var in = Files.newInputStream(path)){
+            return ImageIO.read(new MemoryCacheImageInputStream(in)) != null; //closes the image stream
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+    
+    public static boolean hasImageSignature(Path path){
+        return FileType.of(readFirstBytes(path, FileType.HEADER_BYTES)).isImage();
+    }
+    // </editor-fold>
+    
     // <editor-fold defaultstate="collapsed" desc=" DOWNLOAD ">
     public static void downloadToFile(String url, CachedFile file) throws IOException{
         downloadToFile(url, file, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_BUFFER_SIZE);
@@ -669,6 +1217,21 @@ public final class FileUtils {
         }
     }
     
+    /**
+     * Tests if the file starts with the magic number of a known image format.<br>
+     * Much cheaper than {@code FileUtils#isImage(File)}, as only the header is read 
+     * and nothing is decoded; so it doesn't guarantee the image isn't corrupted.
+     * 
+     * @see FileType#of(File)
+     * @param file file to be tested
+     * @return {@code true} if and only if the header matches an image format;
+     *         {@code false} otherwise
+     */
+    public static boolean hasImageSignature(File file){
+        final FileType type = file instanceof CachedFile? FileType.of((CachedFile) file) : FileType.of(file);
+        return type.isImage();
+    }
+    
     public static boolean hasImageExtension(File file){
         return IMAGES_EXT.contains(getExtension(file.getPath()));
     }
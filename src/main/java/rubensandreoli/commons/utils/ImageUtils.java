@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2021 Rubens A. Andreoli Jr.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package rubensandreoli.commons.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import rubensandreoli.commons.others.IOExecutor;
+import rubensandreoli.commons.others.ImageInfo;
+import rubensandreoli.commons.others.ImageValidation;
+
+/**
+ * References:<br>
+ * https://stackoverflow.com/questions/672916/how-to-get-image-height-and-width-using-java<br>
+ * https://docs.oracle.com/javase/8/docs/api/javax/imageio/ImageReader.html#getNumImages-boolean-<br>
+ * https://docs.oracle.com/javase/8/docs/api/javax/imageio/IIOParam.html#setSourceSubsampling-int-int-int-int-<br>
+ * https://community.oracle.com/docs/DOC-983611 (The Perils of Image.getScaledInstance())
+ *
+ * @author Rubens A. Andreoli Jr.
+ */
+public final class ImageUtils {
+
+    public static final long DEFAULT_DECODE_BUDGET = 512L * 1024 * 1024; //bytes
+    private static final int KB = 1024;
+
+    private ImageUtils(){}
+
+    // <editor-fold defaultstate="collapsed" desc=" PROBE ">
+    /**
+     * Reads the dimensions and format of an image from its header, without
+     * decoding the pixels. The frames are not counted.
+     *
+     * @see ImageUtils#probe(File, boolean)
+     * @param file image file
+     * @return header information; or {@code null} if the file isn't a readable image
+     */
+    public static ImageInfo probe(File file){
+        return probe(file, false);
+    }
+
+    /**
+     * Reads the dimensions, format and number of frames of an image from its header,
+     * without decoding the pixels.<br>
+     * Counting the frames may require the whole file to be scanned for some formats,
+     * like {@code gif}.
+     *
+     * @param file image file
+     * @param countFrames {@code true} to count the frames;
+     *                    {@code false} to report them only if the header has this information
+     * @return header information; or {@code null} if the file isn't a readable image
+     */
+    public static ImageInfo probe(File file, boolean countFrames){
+        try(ImageInputStream in = ImageIO.createImageInputStream(file)){
+            return probe(in, countFrames);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the image information of a path, possibly an archive entry.
+     * Archive entries are read from a stream, cached in memory instead of temporary files.
+     *
+     * @see ImageUtils#probe(File, boolean)
+     * @param path image path
+     * @param countFrames {@code true} to count the frames;
+     *                    {@code false} to report them only if the header has this information
+     * @return header information; or {@code null} if the path isn't a readable image
+     */
+    public static ImageInfo probe(Path path, boolean countFrames){
+        if(path.getFileSystem() == FileSystems.getDefault()) return probe(path.toFile(), countFrames);
+        try(var is = Files.newInputStream(path); var in = new MemoryCacheImageInputStream(is)){
+            return probe(in, countFrames);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the image information from a stream positioned at the start of the image.
+     * The stream is not closed.
+     *
+     * @see ImageUtils#probe(File, boolean)
+     * @param in image stream
+     * @param countFrames {@code true} to count the frames;
+     *                    {@code false} to report them only if the header has this information
+     * @return header information; or {@code null} if the stream isn't a readable image
+     */
+    public static ImageInfo probe(ImageInputStream in, boolean countFrames){
+        if(in == null) return null;
+        final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if(!readers.hasNext()) return null;
+        final ImageReader reader = readers.next();
+        try{
+            reader.setInput(in, !countFrames, true);
+            final int width = reader.getWidth(0);
+            final int height = reader.getHeight(0);
+            final int frames = reader.getNumImages(countFrames);
+            return new ImageInfo(width, height, reader.getFormatName(), frames < 0? ImageInfo.UNKNOWN_FRAMES : frames);
+        }catch(IOException | RuntimeException ex){ //corrupted headers may throw unchecked exceptions
+            return null;
+        }finally{
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Tests if the file has a readable image header.<br>
+     * Much cheaper than {@code FileUtils#isImage(File)}, as the pixels are not decoded;
+     * so it doesn't guarantee the image data isn't truncated or corrupted.
+     *
+     * @param file file to be tested
+     * @return {@code true} if and only if a reader was found and the header could be parsed;
+     *         {@code false} otherwise
+     */
+    public static boolean hasImageHeader(File file){
+        return probe(file, false) != null;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" SCALE ">
+    /**
+     * Decodes an image skipping pixels, so that its largest side is as close as
+     * possible, but not smaller, than the given size. Decoding time and memory 
+     * decrease with the square of the subsampling step, which makes it much 
+     * cheaper than reading the whole image just to shrink it afterwards.
+     *
+     * @param file image file
+     * @param maxSize desired size of the largest side, must be positive
+     * @return subsampled image, not yet scaled to the exact size; or {@code null} 
+     *         if the file isn't a readable image
+     */
+    public static BufferedImage readSubsampled(File file, int maxSize){
+        if(maxSize < 1) throw new IllegalArgumentException("parameter maxSize "+maxSize+" < 1");
+        try(ImageInputStream in = ImageIO.createImageInputStream(file)){
+            if(in == null) return null;
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if(!readers.hasNext()) return null;
+            final ImageReader reader = readers.next();
+            try{
+                reader.setInput(in, true, true);
+                final int step = getSubsampling(reader.getWidth(0), reader.getHeight(0), maxSize);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                if(step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            }finally{
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Calculates the largest subsampling step that keeps the largest side of the 
+     * image at least as big as the given size.
+     * 
+     * @param width original width
+     * @param height original height
+     * @param maxSize desired size of the largest side
+     * @return subsampling step, {@literal 1} means no subsampling
+     */
+    public static int getSubsampling(int width, int height, int maxSize){
+        return Math.max(1, Math.max(width, height) / maxSize);
+    }
+
+    /**
+     * Scales an image to fit inside a square, keeping its aspect ratio.
+     * 
+     * @see ImageUtils#scale(BufferedImage, int, int)
+     * @param image image to be scaled
+     * @param maxSize size of the largest side
+     * @return scaled image; or the same image if it already fits
+     */
+    public static BufferedImage scaleToFit(BufferedImage image, int maxSize){
+        final int width = image.getWidth(), height = image.getHeight();
+        if(width <= maxSize && height <= maxSize) return image;
+        final double ratio = Math.min(maxSize / (double) width, maxSize / (double) height);
+        return scale(image, Math.max(1, (int) Math.round(width*ratio)), Math.max(1, (int) Math.round(height*ratio)));
+    }
+    
+    /**
+     * Scales an image with bilinear interpolation. When shrinking more than half,
+     * the image is halved repeatedly, which gives similar quality to 
+     * {@code Image#SCALE_SMOOTH} at a fraction of the cost.
+     * 
+     * @param image image to be scaled
+     * @param width target width, must be positive
+     * @param height target height, must be positive
+     * @return new scaled image
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height){
+        if(width < 1 || height < 1) throw new IllegalArgumentException("invalid size "+width+"x"+height);
+        final int type = image.getTransparency() == Transparency.OPAQUE? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage scaled = image;
+        int w = image.getWidth(), h = image.getHeight();
+        do{
+            w = w/2 >= width? w/2 : width;
+            h = h/2 >= height? h/2 : height;
+            final BufferedImage step = new BufferedImage(w, h, type);
+            final Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(scaled, 0, 0, w, h, null);
+            g.dispose();
+            scaled = step;
+        }while(w != width || h != height);
+        return scaled;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc=" VALIDATION ">
+    /**
+     * Validates many images concurrently, with full decoding.
+     * 
+     * @see ImageUtils#validate(Collection, int, long, boolean, Consumer)
+     * @param files files to be validated, like the output of {@code FileUtils#scanChildren(File, int)}
+     * @param consumer receives each result as soon as it's ready
+     */
+    public static void validate(Collection<? extends File> files, Consumer<ImageValidation> consumer){
+        validate(files, IOExecutor.DEFAULT_THREADS, DEFAULT_DECODE_BUDGET, true, consumer);
+    }
+    
+    /**
+     * Validates many images concurrently, calling the consumer on the worker threads
+     * as each file is done. This method blocks until all files are validated.<br>
+     * The header of every file is read first; then, if decoding is requested, a 
+     * decode only starts when the estimated size of its bitmap fits in what is left 
+     * of the memory budget, so a few huge images can't exhaust the heap. An image 
+     * bigger than the whole budget is decoded alone.
+     * 
+     * @param files files to be validated, like the output of {@code FileUtils#scanChildren(File, int)}
+     * @param threads number of files validated at the same time, must be positive
+     * @param memoryBudget maximum amount of bytes of bitmaps being decoded at the same time
+     * @param decode {@code true} to decode the whole image, like {@code FileUtils#isImage(File)};
+     *               {@code false} to accept any readable header
+     * @param consumer receives each result as soon as it's ready
+     */
+    public static void validate(Collection<? extends File> files, int threads, long memoryBudget, boolean decode, Consumer<ImageValidation> consumer){
+        final int budgetKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudget / KB));
+        final Semaphore budget = new Semaphore(budgetKb, true);
+        final ExecutorService pool = IOExecutor.create(threads, "image-validation");
+        try{
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+            int i = 0;
+            for (File file : files) {
+                futures[i++] = CompletableFuture.runAsync(() -> consumer.accept(validate(file, decode, budget, budgetKb)), pool);
+            }
+            CompletableFuture.allOf(futures).join();
+        }finally{
+            pool.shutdown();
+        }
+    }
+    
+    private static ImageValidation validate(File file, boolean decode, Semaphore budget, int budgetKb){
+        if(!file.isFile()) return ImageValidation.invalid(file, null, "not a file");
+        final ImageInfo info = probe(file, false);
+        if(info == null) return ImageValidation.invalid(file, null, "unsupported format or unreadable header");
+        if(!decode) return ImageValidation.valid(file, info);
+
+        final int permits = (int) Math.min(budgetKb, Math.max(1, info.getDecodedSize() / KB));
+        try {
+            budget.acquire(permits);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ImageValidation.invalid(file, info, "interrupted");
+        }
+        try{
+            if(ImageIO.read(file) == null) return ImageValidation.invalid(file, info, "no decoder available");
+            return ImageValidation.valid(file, info);
+        }catch(IOException | RuntimeException ex){
+            return ImageValidation.invalid(file, info, ex.getMessage() == null? ex.getClass().getSimpleName() : ex.getMessage());
+        }catch(OutOfMemoryError ex){
+            return ImageValidation.invalid(file, info, "not enough memory to decode");
+        }finally{
+            budget.release(permits);
+        }
+    }
+    // </editor-fold>
+
+}